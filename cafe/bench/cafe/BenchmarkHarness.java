@@ -0,0 +1,150 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal benchmark runner in the spirit of JMH.
+ * Each case is warmed up, then measured for a number of fixed-length
+ * iterations; per-invocation latencies go into a {@link LatencyHistogram}.
+ * Untimed per-invocation setup (e.g. inserting the order a delete will remove)
+ * is done in {@link Case#prepare()}.
+ */
+public class BenchmarkHarness {
+
+    /**
+     * One benchmark; prepare() is untimed, measure() is timed
+     */
+    public interface Case<S> {
+        S prepare() throws Exception;
+
+        void measure(S state) throws Exception;
+    }
+
+    /**
+     * A case whose timed body needs no per-invocation setup
+     */
+    @FunctionalInterface
+    public interface SimpleCase extends Case<Void> {
+        void run() throws Exception;
+
+        @Override
+        default Void prepare() {
+            return null;
+        }
+
+        @Override
+        default void measure(Void state) throws Exception {
+            run();
+        }
+    }
+
+    /**
+     * Measured result of one case
+     */
+    public record Result(String name, long operations, double opsPerSecond, LatencyHistogram latency) {
+    }
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final Pattern include;
+    private final List<Result> results = new ArrayList<>();
+
+    // Results fold into this so the JIT can't drop the benchmarked work
+    private volatile long sink;
+
+    public BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis, String includeRegex) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+        this.include = Pattern.compile(includeRegex);
+    }
+
+    /**
+     * Harness configured from cafe.bench.* system properties
+     */
+    public static BenchmarkHarness fromSystemProperties() {
+        return new BenchmarkHarness(
+                Integer.getInteger("cafe.bench.warmupIterations", 3),
+                Integer.getInteger("cafe.bench.iterations", 5),
+                Long.getLong("cafe.bench.iterationMillis", 1000),
+                System.getProperty("cafe.bench.include", ".*"));
+    }
+
+    public boolean isIncluded(String name) {
+        return include.matcher(name).find();
+    }
+
+    /**
+     * Keep a value alive
+     */
+    public void consume(long value) {
+        sink += value;
+    }
+
+    public void consume(Object value) {
+        sink += value == null ? 0 : value.hashCode();
+    }
+
+    /**
+     * Run a case if it matches the include filter, print and keep its result
+     */
+    public <S> void run(String name, Case<S> benchmark) throws Exception {
+        if (!isIncluded(name)) {
+            return;
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(benchmark, new LatencyHistogram());
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long measuredNanos = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            measuredNanos += iterate(benchmark, latency);
+        }
+
+        double opsPerSecond = latency.getCount() / (measuredNanos / 1e9);
+        Result result = new Result(name, latency.getCount(), opsPerSecond, latency);
+        results.add(result);
+        System.out.println(format(result));
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public static String header() {
+        return String.format("%-40s %10s %12s %10s %10s %10s",
+                "Benchmark", "ops", "ops/s", "p50 us", "p99 us", "max us");
+    }
+
+    public static String format(Result result) {
+        LatencyHistogram h = result.latency();
+        return String.format("%-40s %10d %12.1f %10.1f %10.1f %10.1f",
+                result.name(), result.operations(), result.opsPerSecond(),
+                h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3, h.getMaxNanos() / 1e3);
+    }
+
+    /**
+     * Invoke until the iteration time is used up (at least once)
+     *
+     * @return timed nanoseconds spent in measure()
+     */
+    private <S> long iterate(Case<S> benchmark, LatencyHistogram latency) throws Exception {
+        long timed = 0;
+        long deadline = System.nanoTime() + iterationNanos;
+        do {
+            S state = benchmark.prepare();
+            long start = System.nanoTime();
+            benchmark.measure(state);
+            long elapsed = System.nanoTime() - start;
+            latency.record(elapsed);
+            timed += elapsed;
+        } while (System.nanoTime() < deadline);
+        return timed;
+    }
+}
@@ -0,0 +1,155 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks for the {@link CafeDAO} hot paths. Run with {@code ant bench}.
+ *
+ * Rendering cases always run. Database cases run only with -Dcafe.bench.db=true
+ * because they re-seed the database configured with -Dcafe.db.url and fill it
+ * with up to the largest of cafe.bench.orderCounts generated orders; never
+ * point them at a database whose data matters.
+ *
+ * <pre>
+ * ant bench -Dcafe.bench.db=true -Dcafe.bench.include=insertOrder
+ * </pre>
+ */
+public class DaoBenchmarks {
+
+    // Rendering calls per timed invocation, so timer overhead doesn't dominate
+    private static final int RENDER_BATCH = 1000;
+    private static final int[] INSERT_ITEM_COUNTS = {1, 5, 20};
+
+    private final BenchmarkHarness harness;
+    private final CafeDAO dao = new CafeDAO();
+    private final AtomicLong customerSequence = new AtomicLong();
+
+    public DaoBenchmarks(BenchmarkHarness harness) {
+        this.harness = harness;
+    }
+
+    public static void main(String[] args) throws Exception {
+        DaoBenchmarks benchmarks = new DaoBenchmarks(BenchmarkHarness.fromSystemProperties());
+        System.out.println(BenchmarkHarness.header());
+
+        benchmarks.rendering();
+        if (Boolean.getBoolean("cafe.bench.db")) {
+            benchmarks.database(parseCounts(System.getProperty("cafe.bench.orderCounts", "1000,100000,1000000")));
+        } else {
+            System.out.println("Database benchmarks skipped; enable with -Dcafe.bench.db=true");
+        }
+        System.exit(0);
+    }
+
+    static int[] parseCounts(String spec) {
+        String[] parts = spec.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+
+    /**
+     * Display text is built from the typed records only when a cell is painted
+     */
+    void rendering() throws Exception {
+        Table[] tables = {new Table(1, 2), new Table(7, 3), new Table(10, 4)};
+        MenuItem[] menuItems = {
+            new MenuItem(200, "Nasi Goreng Spesial", "Makanan", 25000),
+            new MenuItem(201, "Es Teh Manis", "Minuman", 8000),
+            new MenuItem(210, "Hot Chocolate", "Minuman", 18000)
+        };
+
+        harness.run("render.Table.displayName x" + RENDER_BATCH, (BenchmarkHarness.SimpleCase) () -> {
+            long sum = 0;
+            for (int i = 0; i < RENDER_BATCH; i++) {
+                sum += tables[i % tables.length].displayName().length();
+            }
+            harness.consume(sum);
+        });
+
+        harness.run("render.MenuItem.displayName x" + RENDER_BATCH, (BenchmarkHarness.SimpleCase) () -> {
+            long sum = 0;
+            for (int i = 0; i < RENDER_BATCH; i++) {
+                sum += menuItems[i % menuItems.length].displayName().length();
+            }
+            harness.consume(sum);
+        });
+    }
+
+    void database(int[] orderCounts) throws Exception {
+        if (!DatabaseConnection.testConnection()) {
+            throw new IllegalStateException("Database benchmarks need a reachable database (-Dcafe.db.url)");
+        }
+        if (!dao.seedDatabase()) {
+            throw new IllegalStateException("Failed to seed the benchmark database");
+        }
+
+        int employeeId = dao.getAllEmployees().get(0).id();
+        int tableNumber = dao.getAvailableTables().get(0).number();
+        List<MenuItem> menu = dao.getAllMenuItems();
+
+        for (int itemCount : INSERT_ITEM_COUNTS) {
+            List<OrderLine> lines = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                lines.add(OrderLine.of(menu.get(i % menu.size())));
+            }
+            harness.run("insertOrder items=" + itemCount, (BenchmarkHarness.SimpleCase) () ->
+                    check(dao.insertOrder("Bench", employeeId, tableNumber, "", "Cash", lines)));
+        }
+        List<OrderLine> singleLine = List.of(OrderLine.of(menu.get(0)));
+
+        // Each invocation serves an order inserted untimed just before it
+        harness.run("serveOrder", new BenchmarkHarness.Case<Integer>() {
+            @Override
+            public Integer prepare() {
+                check(dao.insertOrder(nextCustomer(), employeeId, tableNumber, "", "Cash", singleLine));
+                return dao.getOrderCountAndMaxId(OrderQuery.DEFAULT)[1];
+            }
+
+            @Override
+            public void measure(Integer orderId) {
+                check(dao.serveOrder(orderId));
+            }
+        });
+
+        harness.run("serveOrderByDetails", new BenchmarkHarness.Case<String>() {
+            @Override
+            public String prepare() {
+                String customer = nextCustomer();
+                check(dao.insertOrder(customer, employeeId, tableNumber, "", "Cash", singleLine));
+                return customer;
+            }
+
+            @Override
+            public void measure(String customer) {
+                check(dao.serveOrderByDetails(customer, tableNumber));
+            }
+        });
+
+        // Sizes grow incrementally, so the largest one is generated only once
+        for (int orderCount : orderCounts) {
+            int existing = dao.getOrderCountAndMaxId(OrderQuery.DEFAULT)[0];
+            if (existing < orderCount && !dao.generateLoadTestOrders(orderCount - existing, 3)) {
+                throw new IllegalStateException("Failed to generate " + orderCount + " orders");
+            }
+            harness.run("getAllOrders orders=" + orderCount, (BenchmarkHarness.SimpleCase) () ->
+                    harness.consume(dao.getAllOrders().size()));
+            harness.run("forEachOpenOrder orders=" + orderCount, (BenchmarkHarness.SimpleCase) () ->
+                    harness.consume(dao.forEachOpenOrder(harness::consume)));
+        }
+    }
+
+    private String nextCustomer() {
+        return "Bench " + customerSequence.incrementAndGet();
+    }
+
+    private static void check(boolean ok) {
+        if (!ok) {
+            throw new IllegalStateException("Benchmarked operation failed; see the log");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+-- Base tables and the table status view.
+-- Guarded with IF NOT EXISTS so databases created before migrations are adopted as-is.
+
+-- Meja first (referenced by Pesanan)
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Meja]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE Meja(
+        Nomor_Meja INT PRIMARY KEY IDENTITY(1,1),
+        Kapasitas INT NOT NULL
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Pegawai]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE Pegawai(
+        ID_Pegawai INT PRIMARY KEY IDENTITY(101,1),
+        Nama_Pegawai VARCHAR(50) NOT NULL,
+        Tanggal_Lahir DATE NOT NULL,
+        No_Telpon VARCHAR(20) NOT NULL,
+        Alamat VARCHAR(200) NOT NULL,
+        Gaji INT NOT NULL,
+        Umur AS DATEDIFF(YEAR, Tanggal_Lahir, GETDATE())
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Menu]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE Menu(
+        ID_Menu INT PRIMARY KEY IDENTITY(200,1),
+        Nama_Menu VARCHAR(50) NOT NULL,
+        Kategori VARCHAR(50) NOT NULL,
+        Harga INT NOT NULL,
+        Deskripsi VARCHAR(100),
+        Status_Menu BIT NOT NULL
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Pesanan]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE Pesanan(
+        ID_Pesanan INT PRIMARY KEY IDENTITY (301, 1),
+        ID_Pegawai INT FOREIGN KEY REFERENCES Pegawai(ID_Pegawai),
+        Nomor_Meja INT FOREIGN KEY REFERENCES Meja(Nomor_Meja),
+        Nama_Pemesan VARCHAR(40) NOT NULL,
+        Tanggal_Pesanan DATE NOT NULL,
+        Metode_Pembayaran VARCHAR(20) NOT NULL
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Detail_Pesanan]') AND type in (N'U'))
+BEGIN
+    CREATE TABLE Detail_Pesanan(
+        ID_Detail INT PRIMARY KEY IDENTITY(401,1),
+        ID_Pesanan INT FOREIGN KEY REFERENCES Pesanan(ID_Pesanan),
+        ID_Menu INT FOREIGN KEY REFERENCES Menu(ID_Menu),
+        Catatan VARCHAR(100),
+        Subtotal INT NOT NULL
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[StatusReservasiMeja]') AND type in (N'V'))
+BEGIN
+    EXEC('CREATE VIEW StatusReservasiMeja AS
+    SELECT 
+        m.Nomor_Meja,
+        m.Kapasitas,
+        CASE 
+            WHEN EXISTS (
+                SELECT 1 
+                FROM Pesanan p 
+                WHERE p.Nomor_Meja = m.Nomor_Meja
+            )
+            THEN ''Terpakai''
+            ELSE ''Tersedia''
+        END AS Status_Reservasi
+    FROM Meja m');
+END
+GO
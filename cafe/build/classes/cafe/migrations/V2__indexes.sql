@@ -0,0 +1,29 @@
+-- Indexes for the order board, name lookups and the table status view
+
+-- Order board join and aggregation
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Detail_Pesanan_ID_Pesanan' AND object_id = OBJECT_ID(N'[dbo].[Detail_Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Detail_Pesanan_ID_Pesanan
+        ON Detail_Pesanan (ID_Pesanan) INCLUDE (ID_Menu, Subtotal);
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Menu_Nama_Menu' AND object_id = OBJECT_ID(N'[dbo].[Menu]'))
+    CREATE NONCLUSTERED INDEX IX_Menu_Nama_Menu
+        ON Menu (Nama_Menu) INCLUDE (Kategori, Harga);
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pegawai_Nama_Pegawai' AND object_id = OBJECT_ID(N'[dbo].[Pegawai]'))
+    CREATE NONCLUSTERED INDEX IX_Pegawai_Nama_Pegawai
+        ON Pegawai (Nama_Pegawai);
+GO
+
+-- StatusReservasiMeja EXISTS probe and the table sort
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pesanan_Nomor_Meja' AND object_id = OBJECT_ID(N'[dbo].[Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Pesanan_Nomor_Meja
+        ON Pesanan (Nomor_Meja, ID_Pesanan DESC) INCLUDE (Nama_Pemesan, Metode_Pembayaran);
+GO
+
+-- Customer sort/filter and deleteOrderByDetails
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pesanan_Nama_Pemesan' AND object_id = OBJECT_ID(N'[dbo].[Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Pesanan_Nama_Pemesan
+        ON Pesanan (Nama_Pemesan, ID_Pesanan DESC) INCLUDE (Nomor_Meja, Metode_Pembayaran);
+GO
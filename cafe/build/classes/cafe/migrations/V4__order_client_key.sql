@@ -0,0 +1,10 @@
+-- Client-generated key per order, so queued orders can be written (and replayed) exactly once
+
+IF COL_LENGTH('dbo.Pesanan', 'Client_Key') IS NULL
+    ALTER TABLE Pesanan ADD Client_Key UNIQUEIDENTIFIER NULL;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_Pesanan_Client_Key' AND object_id = OBJECT_ID(N'[dbo].[Pesanan]'))
+    CREATE UNIQUE NONCLUSTERED INDEX UX_Pesanan_Client_Key
+        ON Pesanan (Client_Key) WHERE Client_Key IS NOT NULL;
+GO
@@ -0,0 +1,114 @@
+-- Sales reports read hourly rollups instead of scanning orders.
+-- ReportDAO.updateRollups adds orders past Rekap_Posisi.ID_Terakhir to every
+-- rollup; an order counts in the hour it was placed, whatever happens to it later.
+
+-- Time of day per order, for the hourly figures
+IF COL_LENGTH('dbo.Pesanan', 'Waktu_Pesanan') IS NULL
+    ALTER TABLE Pesanan ADD Waktu_Pesanan DATETIME2(0) NULL;
+GO
+
+-- Earlier orders only have a date; they count at midnight
+UPDATE Pesanan SET Waktu_Pesanan = CAST(Tanggal_Pesanan AS DATETIME2(0)) WHERE Waktu_Pesanan IS NULL;
+GO
+
+ALTER TABLE Pesanan ALTER COLUMN Waktu_Pesanan DATETIME2(0) NOT NULL;
+GO
+
+IF OBJECT_ID(N'[dbo].[DF_Pesanan_Waktu_Pesanan]', N'D') IS NULL
+    ALTER TABLE Pesanan ADD CONSTRAINT DF_Pesanan_Waktu_Pesanan DEFAULT SYSDATETIME() FOR Waktu_Pesanan;
+GO
+
+IF COL_LENGTH('dbo.Riwayat_Pesanan', 'Waktu_Pesanan') IS NULL
+    ALTER TABLE Riwayat_Pesanan ADD Waktu_Pesanan DATETIME2(0) NULL;
+GO
+
+IF OBJECT_ID(N'[dbo].[Rekap_Menu]', N'U') IS NULL
+    CREATE TABLE Rekap_Menu (
+        Tanggal DATE NOT NULL,
+        Jam TINYINT NOT NULL,
+        ID_Menu INT NOT NULL,
+        Jumlah_Pesanan INT NOT NULL,
+        Jumlah_Item INT NOT NULL,
+        Pendapatan BIGINT NOT NULL,
+        CONSTRAINT PK_Rekap_Menu PRIMARY KEY (Tanggal, Jam, ID_Menu)
+    );
+GO
+
+-- ID_Pegawai 0: order without an employee
+IF OBJECT_ID(N'[dbo].[Rekap_Pegawai]', N'U') IS NULL
+    CREATE TABLE Rekap_Pegawai (
+        Tanggal DATE NOT NULL,
+        Jam TINYINT NOT NULL,
+        ID_Pegawai INT NOT NULL,
+        Jumlah_Pesanan INT NOT NULL,
+        Jumlah_Item INT NOT NULL,
+        Pendapatan BIGINT NOT NULL,
+        CONSTRAINT PK_Rekap_Pegawai PRIMARY KEY (Tanggal, Jam, ID_Pegawai)
+    );
+GO
+
+-- Nomor_Meja 0: order without a table
+IF OBJECT_ID(N'[dbo].[Rekap_Meja]', N'U') IS NULL
+    CREATE TABLE Rekap_Meja (
+        Tanggal DATE NOT NULL,
+        Jam TINYINT NOT NULL,
+        Nomor_Meja INT NOT NULL,
+        Jumlah_Pesanan INT NOT NULL,
+        Jumlah_Item INT NOT NULL,
+        Pendapatan BIGINT NOT NULL,
+        CONSTRAINT PK_Rekap_Meja PRIMARY KEY (Tanggal, Jam, Nomor_Meja)
+    );
+GO
+
+-- Every order has exactly one payment method, so this one also holds the day and hour totals
+IF OBJECT_ID(N'[dbo].[Rekap_Pembayaran]', N'U') IS NULL
+    CREATE TABLE Rekap_Pembayaran (
+        Tanggal DATE NOT NULL,
+        Jam TINYINT NOT NULL,
+        Metode_Pembayaran VARCHAR(20) NOT NULL,
+        Jumlah_Pesanan INT NOT NULL,
+        Jumlah_Item INT NOT NULL,
+        Pendapatan BIGINT NOT NULL,
+        CONSTRAINT PK_Rekap_Pembayaran PRIMARY KEY (Tanggal, Jam, Metode_Pembayaran)
+    );
+GO
+
+IF OBJECT_ID(N'[dbo].[Rekap_Posisi]', N'U') IS NULL
+    CREATE TABLE Rekap_Posisi (
+        Nama VARCHAR(20) PRIMARY KEY,
+        ID_Terakhir INT NOT NULL
+    );
+GO
+
+-- Orders archived before the rollups existed are no longer in Pesanan; add them once
+IF NOT EXISTS (SELECT * FROM Rekap_Posisi)
+BEGIN
+    SELECT p.ID_Pesanan, p.Tanggal_Pesanan AS Tanggal,
+           CAST(ISNULL(DATEPART(HOUR, p.Waktu_Pesanan), 0) AS TINYINT) AS Jam,
+           ISNULL(p.ID_Pegawai, 0) AS ID_Pegawai, ISNULL(p.Nomor_Meja, 0) AS Nomor_Meja,
+           p.Metode_Pembayaran, dp.ID_Menu, dp.Jumlah, dp.Subtotal
+    INTO #lines
+    FROM Riwayat_Pesanan p
+    LEFT JOIN Riwayat_Detail_Pesanan dp ON dp.Tanggal_Pesanan = p.Tanggal_Pesanan AND dp.ID_Pesanan = p.ID_Pesanan;
+
+    INSERT INTO Rekap_Menu (Tanggal, Jam, ID_Menu, Jumlah_Pesanan, Jumlah_Item, Pendapatan)
+    SELECT Tanggal, Jam, ID_Menu, COUNT(DISTINCT ID_Pesanan), SUM(Jumlah), SUM(CAST(Subtotal AS BIGINT))
+    FROM #lines WHERE ID_Menu IS NOT NULL GROUP BY Tanggal, Jam, ID_Menu;
+
+    INSERT INTO Rekap_Pegawai (Tanggal, Jam, ID_Pegawai, Jumlah_Pesanan, Jumlah_Item, Pendapatan)
+    SELECT Tanggal, Jam, ID_Pegawai, COUNT(DISTINCT ID_Pesanan), SUM(ISNULL(Jumlah, 0)), SUM(CAST(ISNULL(Subtotal, 0) AS BIGINT))
+    FROM #lines GROUP BY Tanggal, Jam, ID_Pegawai;
+
+    INSERT INTO Rekap_Meja (Tanggal, Jam, Nomor_Meja, Jumlah_Pesanan, Jumlah_Item, Pendapatan)
+    SELECT Tanggal, Jam, Nomor_Meja, COUNT(DISTINCT ID_Pesanan), SUM(ISNULL(Jumlah, 0)), SUM(CAST(ISNULL(Subtotal, 0) AS BIGINT))
+    FROM #lines GROUP BY Tanggal, Jam, Nomor_Meja;
+
+    INSERT INTO Rekap_Pembayaran (Tanggal, Jam, Metode_Pembayaran, Jumlah_Pesanan, Jumlah_Item, Pendapatan)
+    SELECT Tanggal, Jam, Metode_Pembayaran, COUNT(DISTINCT ID_Pesanan), SUM(ISNULL(Jumlah, 0)), SUM(CAST(ISNULL(Subtotal, 0) AS BIGINT))
+    FROM #lines GROUP BY Tanggal, Jam, Metode_Pembayaran;
+
+    DROP TABLE #lines;
+
+    INSERT INTO Rekap_Posisi (Nama, ID_Terakhir) VALUES ('Pesanan', 0);
+END;
+GO
@@ -0,0 +1,82 @@
+package cafe;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal check runner for logic that needs no UI. Run with {@code ant check}.
+ * Each check is a named block that throws on failure; the run fails if any does.
+ *
+ * Database checks run only with -Dcafe.check.db=true because they re-seed the
+ * database configured with -Dcafe.db.url; never point them at a database
+ * whose data matters.
+ *
+ * <pre>
+ * ant check -Dcafe.check.include=OrderJournal
+ * </pre>
+ */
+public class Checks {
+
+    /**
+     * One check; throws to fail
+     */
+    @FunctionalInterface
+    public interface Check {
+        void run() throws Exception;
+    }
+
+    private final Pattern include;
+    private int passed;
+    private int failed;
+
+    public Checks(String includeRegex) {
+        this.include = Pattern.compile(includeRegex);
+    }
+
+    public static void main(String[] args) {
+        Checks checks = new Checks(System.getProperty("cafe.check.include", ".*"));
+
+        OrderLineCheck.run(checks);
+        LatencyHistogramCheck.run(checks);
+        OrderJournalCheck.run(checks);
+        OrderWriteQueueCheck.run(checks);
+        OrderHistoryFileCheck.run(checks);
+        ConnectionPoolCheck.run(checks);
+        OrderTableModelCheck.run(checks);
+        if (Boolean.getBoolean("cafe.check.db")) {
+            DatabaseChecks.run(checks);
+        } else {
+            System.out.println("Database checks skipped; enable with -Dcafe.check.db=true");
+        }
+
+        System.out.println(checks.passed + " passed, " + checks.failed + " failed");
+        System.exit(checks.failed == 0 ? 0 : 1);
+    }
+
+    public void run(String name, Check check) {
+        if (!include.matcher(name).find()) {
+            return;
+        }
+        try {
+            check.run();
+            passed++;
+            System.out.println("ok    " + name);
+        } catch (Throwable t) {
+            failed++;
+            System.out.println("FAIL  " + name);
+            t.printStackTrace(System.out);
+        }
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ConnectionPool} borrowing and statement caching, against stub connections
+ * from the {@link ConnectionPool.ConnectionFactory} seam
+ */
+final class ConnectionPoolCheck {
+
+    private ConnectionPoolCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("ConnectionPool reuses returned connections and times out at maxSize", () -> {
+            AtomicInteger created = new AtomicInteger();
+            ConnectionPool pool = new ConnectionPool(() -> {
+                created.incrementAndGet();
+                return stub(Connection.class);
+            }, 0, 2, 100, 60000, 0, 0);
+            try {
+                Connection first = pool.borrow();
+                Connection second = pool.borrow();
+                assertEquals(2, pool.getActiveCount(), "active");
+                try {
+                    pool.borrow();
+                    throw new AssertionError("borrowed past maxSize");
+                } catch (SQLTimeoutException expected) {
+                    // expected
+                }
+
+                first.close();
+                first.close(); // Returned once only
+                assertEquals(1, pool.getActiveCount(), "active after close");
+                assertTrue(first.isClosed(), "closed handle reports closed");
+
+                Connection third = pool.borrow();
+                assertEquals(2, created.get(), "physical connections created");
+                second.close();
+                third.close();
+                assertEquals(0, pool.getActiveCount(), "active at the end");
+                assertEquals(2, pool.getIdleCount(), "idle at the end");
+            } finally {
+                pool.close();
+            }
+        });
+
+        checks.run("ConnectionPool caches prepared statements per connection", () -> {
+            ConnectionPool pool = new ConnectionPool(() -> stub(Connection.class), 0, 1, 100, 60000, 0, 2);
+            try {
+                for (int i = 0; i < 3; i++) {
+                    try (Connection conn = pool.borrow();
+                         PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+                        assertTrue(stmt.getConnection() == conn, "statement belongs to the handle");
+                    }
+                }
+                assertEquals(1L, pool.getStatementCacheMisses(), "misses");
+                assertEquals(2L, pool.getStatementCacheHits(), "hits");
+
+                try (Connection conn = pool.borrow()) {
+                    for (String sql : new String[] { "SELECT 2", "SELECT 3", "SELECT 4" }) {
+                        conn.prepareStatement(sql).close();
+                    }
+                }
+                assertEquals(2L, pool.getStatementCacheEvictions(), "evictions past the cache size");
+            } finally {
+                pool.close();
+            }
+        });
+
+        checks.run("ConnectionPool statements are unusable once their connection is returned", () -> {
+            ConnectionPool pool = new ConnectionPool(() -> stub(Connection.class), 0, 1, 100, 60000, 0, 4);
+            try {
+                Connection conn = pool.borrow();
+                PreparedStatement stmt = conn.prepareStatement("SELECT 1");
+                conn.close();
+                assertTrue(stmt.isClosed(), "statement closed with its connection");
+                try {
+                    stmt.executeQuery();
+                    throw new AssertionError("statement used after its connection was returned");
+                } catch (SQLException expected) {
+                    // expected
+                }
+                stmt.close(); // No effect on the cache the next borrower uses
+
+                try (Connection next = pool.borrow()) {
+                    next.prepareStatement("SELECT 1").close();
+                    assertEquals(1L, pool.getStatementCacheHits(), "statement went back to the cache once");
+                }
+            } finally {
+                pool.close();
+            }
+        });
+    }
+
+    /**
+     * Connection or statement that accepts every call; statements come back from prepareStatement
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(ConnectionPoolCheck.class.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "isValid", "getAutoCommit" -> true;
+                case "isClosed", "getMoreResults" -> false;
+                case "getUpdateCount" -> -1;
+                case "prepareStatement" -> stub(PreparedStatement.class);
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> null;
+            });
+    }
+}
@@ -0,0 +1,163 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks against a real database; run only with -Dcafe.check.db=true.
+ * They re-seed the database configured with -Dcafe.db.url.
+ */
+final class DatabaseChecks {
+
+    // Enough orders that the optimizer's choice between seek and scan matters
+    private static final int PLAN_ORDERS = 50000;
+    private static final Pattern SUBTREE_COST = Pattern.compile("StatementSubTreeCost=\"([^\"]+)\"");
+
+    private DatabaseChecks() {
+    }
+
+    static void run(Checks checks) {
+        CafeDAO dao = new CafeDAO();
+        ReportDAO reports = new ReportDAO();
+
+        checks.run("ReportDAO.updateRollups adds each order once", () -> {
+            assertTrue(dao.seedDatabase(), "database seeded");
+            long orders = queryLong("SELECT COUNT(*) FROM Pesanan");
+            assertTrue(orders > 0, "seed has orders");
+
+            assertEquals((int) orders, reports.updateRollups(), "orders added by the first run");
+            assertRollupsMatchOrders();
+            assertEquals(queryLong("SELECT MAX(ID_Pesanan) FROM Pesanan"),
+                queryLong("SELECT ID_Terakhir FROM Rekap_Posisi WHERE Nama = 'Pesanan'"), "rollup position");
+
+            assertEquals(0, reports.updateRollups(), "orders added by a second run");
+            assertRollupsMatchOrders();
+
+            assertTrue(dao.insertOrder("Rekap", 101, 1, "", "Cash", List.of(new OrderLine(200, 25000, 3))), "order inserted");
+            assertEquals(1, reports.updateRollups(), "orders added after a new order");
+            assertRollupsMatchOrders();
+        });
+
+        checks.run("CafeDAO.archiveClosedOrders moves served orders already in the rollups", () -> {
+            assertTrue(dao.seedDatabase(), "database seeded");
+            assertTrue(reports.updateRollups() >= 0, "rollups updated");
+            int orderId = (int) queryLong("SELECT MIN(ID_Pesanan) FROM Pesanan");
+            assertTrue(dao.serveOrder(orderId), "order served");
+            Thread.sleep(10); // Served strictly before the cutoff
+
+            assertEquals(1, dao.archiveClosedOrders(0, 100), "orders archived");
+            assertEquals(1L, queryLong("SELECT COUNT(*) FROM Riwayat_Pesanan WHERE ID_Pesanan = " + orderId), "in history");
+            assertEquals(0L, queryLong("SELECT COUNT(*) FROM Pesanan WHERE ID_Pesanan = " + orderId), "out of Pesanan");
+        });
+
+        checks.run("Order board indexes lower the estimated cost of a page", () -> {
+            assertTrue(dao.seedDatabase(), "database seeded");
+            assertTrue(dao.generateLoadTestOrders(PLAN_ORDERS, 3), "orders generated");
+            try (Connection conn = DatabaseConnection.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("UPDATE STATISTICS Pesanan; UPDATE STATISTICS Detail_Pesanan;");
+            }
+
+            assertIndexLowersCost(OrderQuery.DEFAULT, "Detail_Pesanan", "IX_Detail_Pesanan_ID_Pesanan");
+            assertIndexLowersCost(OrderQuery.DEFAULT.withSort(OrderQuery.Sort.TABLE), "Pesanan", "IX_Pesanan_Nomor_Meja");
+            assertIndexLowersCost(OrderQuery.DEFAULT.withSort(OrderQuery.Sort.CUSTOMER), "Pesanan", "IX_Pesanan_Nama_Pemesan");
+        });
+    }
+
+    /**
+     * Compare the estimated cost of an offset page deep into the board with the
+     * index in place and with it disabled
+     */
+    private static void assertIndexLowersCost(OrderQuery query, String table, String index) throws SQLException {
+        // upperBound, offset, limit
+        String sql = withLiterals(CafeDAO.orderPageQuery(query, false), Integer.MAX_VALUE, 1000, 100);
+
+        double withIndex = estimatedCost(sql);
+        double withoutIndex;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER INDEX " + index + " ON " + table + " DISABLE");
+            try {
+                withoutIndex = estimatedCost(sql);
+            } finally {
+                stmt.execute("ALTER INDEX " + index + " ON " + table + " REBUILD");
+            }
+        }
+
+        System.out.printf("      %s, %s: estimated cost %.4f with the index, %.4f without%n",
+            query.sort(), index, withIndex, withoutIndex);
+        assertTrue(withIndex < withoutIndex, index + " lowers the cost of the " + query.sort() + " page");
+    }
+
+    /**
+     * Estimated subtree cost of a query from its SHOWPLAN_XML; the query is compiled, not run
+     */
+    private static double estimatedCost(String sql) throws SQLException {
+        String plan;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SET SHOWPLAN_XML ON");
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                rs.next();
+                plan = rs.getString(1);
+            } finally {
+                stmt.execute("SET SHOWPLAN_XML OFF");
+            }
+        }
+        Matcher cost = SUBTREE_COST.matcher(plan);
+        assertTrue(cost.find(), "plan has a subtree cost");
+        return Double.parseDouble(cost.group(1));
+    }
+
+    /**
+     * Replace the ? markers in order, since SHOWPLAN_XML compiles statement text
+     */
+    private static String withLiterals(String sql, int... values) {
+        StringBuilder text = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                text.append(values[next++]);
+            } else {
+                text.append(c);
+            }
+        }
+        assertEquals(values.length, next, "parameters in " + sql);
+        return text.toString();
+    }
+
+    /**
+     * Every rollup holds the same totals as a scan of the orders they were built from
+     */
+    private static void assertRollupsMatchOrders() throws SQLException {
+        long orders = queryLong("SELECT COUNT(*) FROM Pesanan");
+        long items = queryLong("SELECT ISNULL(SUM(Jumlah), 0) FROM Detail_Pesanan");
+        long revenue = queryLong("SELECT ISNULL(SUM(CAST(Subtotal AS BIGINT)), 0) FROM Detail_Pesanan");
+
+        for (String rollup : new String[] { "Rekap_Pegawai", "Rekap_Meja", "Rekap_Pembayaran" }) {
+            assertEquals(orders, queryLong("SELECT ISNULL(SUM(Jumlah_Pesanan), 0) FROM " + rollup), rollup + " orders");
+            assertEquals(items, queryLong("SELECT ISNULL(SUM(Jumlah_Item), 0) FROM " + rollup), rollup + " items");
+            assertEquals(revenue, queryLong("SELECT ISNULL(SUM(Pendapatan), 0) FROM " + rollup), rollup + " revenue");
+        }
+        assertEquals(revenue, queryLong("SELECT ISNULL(SUM(Pendapatan), 0) FROM Rekap_Menu"), "Rekap_Menu revenue");
+        assertEquals(queryLong("SELECT COUNT(DISTINCT ID_Menu) FROM Detail_Pesanan"),
+            queryLong("SELECT COUNT(DISTINCT ID_Menu) FROM Rekap_Menu"), "Rekap_Menu items");
+    }
+
+    static long queryLong(String query) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+/**
+ * {@link LatencyHistogram} percentiles, precision and merging
+ */
+final class LatencyHistogramCheck {
+
+    private LatencyHistogramCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("LatencyHistogram is empty before recording", () -> {
+            LatencyHistogram histogram = new LatencyHistogram();
+            assertEquals(0L, histogram.getValueAtPercentile(99), "p99");
+            assertEquals(0.0, histogram.getMeanNanos(), "mean");
+        });
+
+        checks.run("LatencyHistogram percentiles stay within 1.5%", () -> {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long micros = 1; micros <= 10_000; micros++) {
+                histogram.record(micros * 1000);
+            }
+            assertEquals(10_000L, histogram.getCount(), "count");
+            assertEquals(10_000_000L, histogram.getMaxNanos(), "max");
+            assertWithin(5_000_000, histogram.getValueAtPercentile(50), "p50");
+            assertWithin(9_900_000, histogram.getValueAtPercentile(99), "p99");
+            assertEquals(10_000_000L, histogram.getValueAtPercentile(100), "p100");
+        });
+
+        checks.run("LatencyHistogram small values are exact", () -> {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long value = 0; value < 64; value++) {
+                histogram.record(value);
+            }
+            histogram.record(-5); // Clamped to 0
+            assertEquals(0L, histogram.getValueAtPercentile(1), "p1");
+            assertEquals(63L, histogram.getValueAtPercentile(100), "p100");
+        });
+
+        checks.run("LatencyHistogram.add merges counts and max", () -> {
+            LatencyHistogram first = new LatencyHistogram();
+            LatencyHistogram second = new LatencyHistogram();
+            first.record(1000);
+            second.record(3000);
+            first.add(second);
+            assertEquals(2L, first.getCount(), "count");
+            assertEquals(3000L, first.getMaxNanos(), "max");
+            assertEquals(2000.0, first.getMeanNanos(), "mean");
+
+            first.reset();
+            assertEquals(0L, first.getCount(), "count after reset");
+        });
+    }
+
+    private static void assertWithin(long expected, long actual, String what) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.015, what + ": expected about " + expected + " but was " + actual);
+    }
+}
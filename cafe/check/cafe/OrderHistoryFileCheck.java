@@ -0,0 +1,70 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link OrderHistoryFile} round trip, across block boundaries and with every nullable field
+ */
+final class OrderHistoryFileCheck {
+
+    private OrderHistoryFileCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("OrderHistoryFile reads back what it wrote", () -> {
+            List<OrderHistoryFile.OrderRecord> orders = new ArrayList<>();
+            LocalDate firstDay = LocalDate.of(2024, 1, 1);
+            int detailId = 1;
+            // More than a block, so the second block starts from the first one's last values
+            for (int i = 0; i < OrderHistoryFile.BLOCK_ORDERS + 10; i++) {
+                LocalDate day = firstDay.plusDays(i / 50);
+                LocalDateTime placedAt = i % 7 == 0 ? null : day.atTime(8, 0).plusSeconds(i * 37L % 50000);
+                LocalDateTime servedAt = i % 5 == 0 ? null : (placedAt == null ? day.atStartOfDay() : placedAt).plusMinutes(12);
+
+                List<OrderHistoryFile.LineRecord> lines = new ArrayList<>();
+                for (int j = 0; j < i % 4; j++) {
+                    lines.add(new OrderHistoryFile.LineRecord(detailId++, j == 2 ? 0 : 200 + j,
+                        j == 2 ? null : "Menu " + j, j + 1, (j + 1) * 8000, j == 1 ? null : "Catatan " + i));
+                }
+                orders.add(new OrderHistoryFile.OrderRecord(i * 3 + 1, day, placedAt, i % 3 == 0 ? 0 : 101,
+                    i % 11, "Pemesan " + i, i % 2 == 0 ? "Cash" : "QRIS", i % 9 == 0 ? 'V' : 'S', servedAt, lines));
+            }
+
+            Path file = Files.createTempFile("cafe-history", ".bin");
+            file.toFile().deleteOnExit();
+            try (OrderHistoryFile.Writer writer = new OrderHistoryFile.Writer(file)) {
+                for (OrderHistoryFile.OrderRecord order : orders) {
+                    writer.write(order);
+                }
+            }
+
+            List<OrderHistoryFile.OrderRecord> read = new ArrayList<>();
+            try (OrderHistoryFile.Reader reader = new OrderHistoryFile.Reader(file)) {
+                OrderHistoryFile.OrderRecord order;
+                while ((order = reader.next()) != null) {
+                    read.add(order);
+                }
+            }
+            assertEquals(orders.size(), read.size(), "order count");
+            for (int i = 0; i < orders.size(); i++) {
+                assertEquals(orders.get(i), read.get(i), "order " + i);
+            }
+        });
+
+        checks.run("OrderHistoryFile with no orders reads back empty", () -> {
+            Path file = Files.createTempFile("cafe-history", ".bin");
+            file.toFile().deleteOnExit();
+            new OrderHistoryFile.Writer(file).close();
+            try (OrderHistoryFile.Reader reader = new OrderHistoryFile.Reader(file)) {
+                assertEquals(null, reader.next(), "first order");
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * {@link OrderJournal} replay, truncation and recovery from torn or corrupt records
+ */
+final class OrderJournalCheck {
+
+    private OrderJournalCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("OrderJournal replays orders without a commit record", () -> {
+            Path file = tempJournal();
+            QueuedOrder first = order("Budi");
+            QueuedOrder second = order("Sari");
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(first);
+                journal.append(second);
+                journal.markCommitted(List.of(first));
+            }
+            try (OrderJournal journal = new OrderJournal(file)) {
+                assertEquals(List.of(second), journal.getOutstanding(10), "outstanding after reopen");
+            }
+        });
+
+        checks.run("OrderJournal hands out the oldest orders up to the limit", () -> {
+            Path file = tempJournal();
+            QueuedOrder first = order("Budi");
+            QueuedOrder second = order("Sari");
+            QueuedOrder third = order("Tono");
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(first);
+                journal.append(second);
+                journal.append(third);
+                assertEquals(List.of(first, second), journal.getOutstanding(2), "oldest two");
+                assertEquals(3, journal.getOutstandingCount(), "count");
+            }
+        });
+
+        checks.run("OrderJournal truncates once nothing is outstanding", () -> {
+            Path file = tempJournal();
+            QueuedOrder order = order("Budi");
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(order);
+                journal.markCommitted(List.of(order));
+            }
+            assertEquals(0L, Files.size(file), "journal size");
+        });
+
+        checks.run("OrderJournal ignores a torn record at the end", () -> {
+            Path file = tempJournal();
+            QueuedOrder order = order("Budi");
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(order);
+            }
+            long validLength = Files.size(file);
+            // Type byte and a length promising more payload than follows, as after a crash mid-write
+            Files.write(file, new byte[] { 1, 0, 0, 1, 0, 42, 42 }, StandardOpenOption.APPEND);
+
+            try (OrderJournal journal = new OrderJournal(file)) {
+                assertEquals(List.of(order), journal.getOutstanding(10), "outstanding");
+            }
+            assertEquals(validLength, Files.size(file), "journal size after recovery");
+        });
+
+        checks.run("OrderJournal stops at a record whose CRC doesn't match", () -> {
+            Path file = tempJournal();
+            QueuedOrder first = order("Budi");
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(first);
+            }
+            long firstLength = Files.size(file);
+            try (OrderJournal journal = new OrderJournal(file)) {
+                journal.append(order("Sari"));
+            }
+            // Flip one payload byte of the second record
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer b = ByteBuffer.allocate(1);
+                long position = firstLength + 5 + 20;
+                channel.read(b, position);
+                b.flip();
+                byte flipped = (byte) (b.get() ^ 0xFF);
+                channel.write(ByteBuffer.wrap(new byte[] { flipped }), position);
+            }
+
+            try (OrderJournal journal = new OrderJournal(file)) {
+                assertEquals(List.of(first), journal.getOutstanding(10), "outstanding");
+            }
+            assertEquals(firstLength, Files.size(file), "journal size after recovery");
+        });
+    }
+
+    private static Path tempJournal() throws Exception {
+        Path file = Files.createTempFile("cafe-journal", ".log");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static QueuedOrder order(String customer) {
+        return QueuedOrder.create(customer, 101, 3, "Tanpa es", "Cash",
+            List.of(new OrderLine(200, 25000, 2), new OrderLine(201, 8000, 1)));
+    }
+}
@@ -0,0 +1,40 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+import java.util.List;
+
+/**
+ * {@link OrderLine} quantities and aggregation
+ */
+final class OrderLineCheck {
+
+    private OrderLineCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("OrderLine.aggregate merges lines per menu item in first-seen order", () -> {
+            List<OrderLine> lines = List.of(
+                new OrderLine(201, 8000, 1),
+                new OrderLine(200, 25000, 2),
+                new OrderLine(201, 8000, 3));
+
+            List<OrderLine> aggregated = OrderLine.aggregate(lines);
+            assertEquals(List.of(new OrderLine(201, 8000, 4), new OrderLine(200, 25000, 2)), aggregated, "aggregated lines");
+            assertEquals(32000, aggregated.get(0).subtotal(), "subtotal");
+        });
+
+        checks.run("OrderLine.aggregate of no lines is empty", () ->
+            assertTrue(OrderLine.aggregate(List.of()).isEmpty(), "no lines"));
+
+        checks.run("OrderLine rejects a quantity below one", () -> {
+            try {
+                new OrderLine(200, 25000, 0);
+                throw new AssertionError("quantity 0 accepted");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        });
+    }
+}
@@ -0,0 +1,279 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+
+/**
+ * {@link OrderTableModel} page bookkeeping: feed inserts and deletes shift the
+ * cached pages instead of refetching them, and every row stays where the
+ * database would put it
+ */
+final class OrderTableModelCheck {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private OrderTableModelCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("OrderTableModel splices feed inserts and deletes into cached pages", () -> {
+            Board board = new Board(250);
+            try {
+                board.load(OrderQuery.DEFAULT);
+                int loads = board.dao.pageLoads.get();
+
+                board.insert(new Order(251, "P251", 4, "Cash", "", 0));
+                assertEquals(List.of("insert 0"), board.events, "events");
+                board.assertRowsMatch();
+
+                board.delete(100);
+                assertEquals(List.of("delete 151"), board.events, "events");
+                board.assertRowsMatch();
+
+                board.delete(100); // Repeated by the feed; counted once
+                assertEquals(List.of(), board.events, "events");
+                assertEquals(250, board.onEdt(board.model::getRowCount), "row count");
+
+                board.settle();
+                assertEquals(loads, board.dao.pageLoads.get(), "pages fetched after the changes");
+            } finally {
+                board.close();
+            }
+        });
+
+        checks.run("OrderTableModel places inserts inside a page on the table sort", () -> {
+            Board board = new Board(250);
+            try {
+                board.load(OrderQuery.DEFAULT.withSort(OrderQuery.Sort.TABLE));
+                int loads = board.dao.pageLoads.get();
+
+                board.insert(new Order(251, "P251", 3, "Cash", "", 0));
+                board.assertRowsMatch();
+                board.insert(new Order(252, "P252", 0, "Cash", "", 0));
+                assertEquals(List.of("insert 0"), board.events, "events");
+                board.assertRowsMatch();
+                board.delete(7);
+                board.assertRowsMatch();
+
+                board.settle();
+                assertEquals(loads, board.dao.pageLoads.get(), "pages fetched after the changes");
+            } finally {
+                board.close();
+            }
+        });
+
+        checks.run("OrderTableModel keeps stale rows showing on the customer sort until refetched", () -> {
+            Board board = new Board(250);
+            try {
+                board.load(OrderQuery.DEFAULT.withSort(OrderQuery.Sort.CUSTOMER));
+                int loads = board.dao.pageLoads.get();
+
+                board.insert(new Order(251, "P251", 3, "Cash", "", 0));
+                assertEquals(List.of("changed"), board.events, "events");
+                assertEquals(251, board.onEdt(board.model::getRowCount), "row count");
+                assertTrue(board.onEdt(() -> board.model.getOrder(0)) != null, "stale row still shown");
+
+                board.loadAll();
+                assertTrue(board.dao.pageLoads.get() > loads, "stale pages were refetched");
+                board.assertRowsMatch();
+            } finally {
+                board.close();
+            }
+        });
+    }
+
+    /**
+     * Model over an in-memory order list, driven on the EDT
+     */
+    private static final class Board {
+        final FakeDAO dao = new FakeDAO();
+        final AsyncCafeDAO asyncDAO = new AsyncCafeDAO(dao);
+        final OrderTableModel model = new OrderTableModel(asyncDAO);
+        final List<String> events = new ArrayList<>();
+        private long changeId;
+
+        Board(int orders) {
+            for (int id = 1; id <= orders; id++) {
+                dao.orders.add(new Order(id, "P" + id, id % 7, "Cash", "", 0));
+            }
+            model.addTableModelListener(e -> events.add(
+                e.getType() == TableModelEvent.INSERT ? "insert " + e.getFirstRow()
+                : e.getType() == TableModelEvent.DELETE ? "delete " + e.getFirstRow()
+                : e.getFirstRow() == TableModelEvent.HEADER_ROW || e.getLastRow() == Integer.MAX_VALUE ? "changed"
+                : "updated"));
+        }
+
+        void load(OrderQuery query) throws Exception {
+            CountDownLatch loaded = new CountDownLatch(1);
+            onEdt(() -> {
+                model.setQuery(query);
+                model.reload(loaded::countDown);
+                return null;
+            });
+            assertTrue(loaded.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), "reload finished");
+            loadAll();
+        }
+
+        /**
+         * Touch every row until each shows a fresh order
+         */
+        void loadAll() throws Exception {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (true) {
+                int before = dao.pageLoads.get();
+                boolean complete = onEdt(() -> {
+                    boolean all = true;
+                    for (int row = 0; row < model.getRowCount(); row++) {
+                        all &= model.getOrder(row) != null;
+                    }
+                    return all;
+                });
+                settle();
+                if (complete && dao.pageLoads.get() == before) {
+                    events.clear();
+                    return;
+                }
+                assertTrue(System.currentTimeMillis() < deadline, "pages loaded in time");
+            }
+        }
+
+        void insert(Order order) throws Exception {
+            synchronized (dao) {
+                dao.orders.add(order);
+            }
+            events.clear();
+            OrderChange change = new OrderChange(++changeId, OrderChange.Kind.INSERTED, order.id(), 0, order.customerName(), order);
+            onEdt(() -> {
+                model.applyChanges(List.of(change));
+                return null;
+            });
+        }
+
+        void delete(int orderId) throws Exception {
+            synchronized (dao) {
+                dao.orders.removeIf(order -> order.id() == orderId);
+            }
+            events.clear();
+            OrderChange change = new OrderChange(++changeId, OrderChange.Kind.DELETED, orderId, 0, "", null);
+            onEdt(() -> {
+                model.applyChanges(List.of(change));
+                return null;
+            });
+        }
+
+        /**
+         * Every row, read from the cache only, is the order the database has there
+         */
+        void assertRowsMatch() throws Exception {
+            List<Order> expected;
+            synchronized (dao) {
+                expected = dao.sorted(model.getQuery(), Integer.MAX_VALUE);
+            }
+            assertEquals(expected.size(), onEdt(model::getRowCount), "row count");
+            List<Order> shown = onEdt(() -> {
+                List<Order> rows = new ArrayList<>();
+                for (int row = 0; row < model.getRowCount(); row++) {
+                    rows.add(model.getOrder(row));
+                }
+                return rows;
+            });
+            for (int row = 0; row < expected.size(); row++) {
+                assertEquals(expected.get(row), shown.get(row), "row " + row);
+            }
+        }
+
+        /**
+         * Let running page loads land
+         */
+        void settle() throws Exception {
+            int idleRounds = 0;
+            while (idleRounds < 3) {
+                int before = dao.pageLoads.get();
+                Thread.sleep(20);
+                onEdt(() -> null);
+                idleRounds = dao.pageLoads.get() == before ? idleRounds + 1 : 0;
+            }
+        }
+
+        <T> T onEdt(Callable<T> action) throws Exception {
+            AtomicReference<T> result = new AtomicReference<>();
+            AtomicReference<Exception> error = new AtomicReference<>();
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result.set(action.call());
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            });
+            if (error.get() != null) {
+                throw error.get();
+            }
+            return result.get();
+        }
+
+        void close() {
+            asyncDAO.shutdown();
+        }
+    }
+
+    /**
+     * Orders held in memory, paged like {@link CafeDAO#getOrderPage}
+     */
+    private static final class FakeDAO extends CafeDAO {
+        final List<Order> orders = new ArrayList<>();
+        final AtomicInteger pageLoads = new AtomicInteger();
+
+        @Override
+        public synchronized int[] getOrderCountAndMaxId(OrderQuery query) {
+            return new int[] { orders.size(), orders.stream().mapToInt(Order::id).max().orElse(0) };
+        }
+
+        @Override
+        public synchronized List<Order> getOrderPage(OrderQuery query, int upperBound, int afterId, int offset, int limit) {
+            pageLoads.incrementAndGet();
+            List<Order> sorted = sorted(query, upperBound);
+            int start = offset;
+            if (afterId > 0) {
+                start = -1;
+                for (int i = 0; i < sorted.size(); i++) {
+                    if (sorted.get(i).id() == afterId) {
+                        start = i + 1;
+                    }
+                }
+                if (start < 0) {
+                    return List.of();
+                }
+            }
+            return new ArrayList<>(sorted.subList(Math.min(start, sorted.size()), Math.min(start + limit, sorted.size())));
+        }
+
+        List<Order> sorted(OrderQuery query, int upperBound) {
+            Comparator<Order> newestFirst = Comparator.comparingInt(Order::id).reversed();
+            Comparator<Order> order = switch (query.sort()) {
+                case NEWEST -> newestFirst;
+                case OLDEST -> Comparator.comparingInt(Order::id);
+                case CUSTOMER -> Comparator.comparing(Order::customerName).thenComparing(newestFirst);
+                case TABLE -> Comparator.comparingInt(Order::tableNumber).thenComparing(newestFirst);
+            };
+            List<Order> sorted = new ArrayList<>();
+            for (Order o : orders) {
+                if (o.id() <= upperBound) {
+                    sorted.add(o);
+                }
+            }
+            sorted.sort(order);
+            return sorted;
+        }
+    }
+}
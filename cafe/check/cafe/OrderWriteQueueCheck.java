@@ -0,0 +1,143 @@
+package cafe;
+
+import static cafe.Checks.assertEquals;
+import static cafe.Checks.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link OrderWriteQueue} retries a group only while the database is
+ * unreachable, and sets aside an order the database refuses while reachable
+ */
+final class OrderWriteQueueCheck {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private OrderWriteQueueCheck() {
+    }
+
+    static void run(Checks checks) {
+        checks.run("OrderWriteQueue moves an order the database refuses to the rejected journal", () -> {
+            FakeDAO dao = new FakeDAO();
+            Recorder recorder = new Recorder();
+            QueuedOrder first = order("Budi");
+            QueuedOrder poison = order("Nama yang jauh lebih panjang dari empat puluh karakter");
+            QueuedOrder last = order("Sari");
+
+            OrderJournal journal = new OrderJournal(tempFile());
+            OrderJournal rejected = new OrderJournal(tempFile());
+            // Journaled before the writer starts, so all three arrive as one group
+            journal.append(first);
+            journal.append(poison);
+            journal.append(last);
+            try (OrderWriteQueue queue = new OrderWriteQueue(dao, journal, rejected, 10, 10, recorder)) {
+                waitFor(() -> recorder.committed().size() == 2 && recorder.rejected().size() == 1);
+                assertEquals(List.of(first, last), dao.stored(), "stored");
+                assertEquals(List.of(poison), recorder.rejected(), "rejected");
+                assertEquals(0, queue.getPendingCount(), "pending");
+                assertEquals(1, queue.getRejectedCount(), "kept in the rejected journal");
+                assertTrue(!queue.isUnreachable(), "reachable");
+            }
+        });
+
+        checks.run("OrderWriteQueue retries a group while the database is unreachable", () -> {
+            FakeDAO dao = new FakeDAO();
+            dao.reachable = false;
+            Recorder recorder = new Recorder();
+            QueuedOrder order = order("Budi");
+
+            try (OrderWriteQueue queue = new OrderWriteQueue(dao, new OrderJournal(tempFile()),
+                    new OrderJournal(tempFile()), 10, 10, recorder)) {
+                queue.enqueue(order);
+                waitFor(queue::isUnreachable);
+                assertEquals(1, queue.getPendingCount(), "pending while unreachable");
+                assertEquals(0, queue.getRejectedCount(), "rejected while unreachable");
+
+                dao.reachable = true;
+                waitFor(() -> recorder.committed().size() == 1);
+                assertEquals(List.of(order), dao.stored(), "stored");
+                assertEquals(0, queue.getPendingCount(), "pending");
+                assertTrue(!queue.isUnreachable(), "reachable after the commit");
+            }
+        });
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.holds()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition reached in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Path tempFile() throws Exception {
+        Path file = Files.createTempFile("cafe-journal", ".log");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static QueuedOrder order(String customer) {
+        return QueuedOrder.create(customer, 101, 3, "", "Cash", List.of(new OrderLine(200, 25000, 1)));
+    }
+
+    /**
+     * Refuses any group with a name longer than Nama_Pemesan takes, like the database would
+     */
+    private static final class FakeDAO extends CafeDAO {
+        private final List<QueuedOrder> stored = new ArrayList<>();
+        volatile boolean reachable = true;
+
+        @Override
+        public synchronized boolean insertOrders(List<QueuedOrder> orders) {
+            if (!reachable) {
+                return false;
+            }
+            for (QueuedOrder order : orders) {
+                if (order.customerName().length() > 40) {
+                    return false;
+                }
+            }
+            stored.addAll(orders);
+            return true;
+        }
+
+        @Override
+        public boolean isReachable() {
+            return reachable;
+        }
+
+        synchronized List<QueuedOrder> stored() {
+            return List.copyOf(stored);
+        }
+    }
+
+    private static final class Recorder implements OrderWriteQueue.Listener {
+        private final List<QueuedOrder> committed = new ArrayList<>();
+        private final List<QueuedOrder> rejected = new ArrayList<>();
+
+        @Override
+        public synchronized void ordersCommitted(List<QueuedOrder> orders) {
+            committed.addAll(orders);
+        }
+
+        @Override
+        public synchronized void orderRejected(QueuedOrder order) {
+            rejected.add(order);
+        }
+
+        synchronized List<QueuedOrder> committed() {
+            return List.copyOf(committed);
+        }
+
+        synchronized List<QueuedOrder> rejected() {
+            return List.copyOf(rejected);
+        }
+    }
+}
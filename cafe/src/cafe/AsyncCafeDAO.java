@@ -0,0 +1,54 @@
+package cafe;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs blocking {@link CafeDAO} work off the caller's thread.
+ * Every call runs on its own virtual thread so blocking JDBC never touches the
+ * caller's thread (in particular the Swing Event Dispatch Thread). Cancelling a
+ * returned future interrupts the thread running it.
+ */
+public class AsyncCafeDAO {
+
+    private final CafeDAO dao;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncCafeDAO(CafeDAO dao) {
+        this.dao = dao;
+    }
+
+    public CafeDAO getDao() {
+        return dao;
+    }
+
+    /**
+     * Run any blocking task in the background
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stop accepting work; tasks already running are left to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,9 +1,18 @@
 package cafe;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,66 +23,84 @@ public class CafeDAO {
 
     private static final Logger logger = Logger.getLogger(CafeDAO.class.getName());
 
-    // Employee operations
-    public List<String> getAllEmployees() {
-        List<String> employees = new ArrayList<>();
-        String query = "SELECT Nama_Pegawai FROM Pegawai";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
+    private static final MetricsRegistry metrics = MetricsRegistry.get();
 
-            while (rs.next()) {
-                employees.add(rs.getString("Nama_Pegawai"));
-            }
+    // Menu, Pegawai and Meja change rarely; shared so every DAO sees the same snapshot
+    private static final ReferenceDataCache referenceData = createReferenceDataCache();
 
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to fetch employees", e);
+    private static ReferenceDataCache createReferenceDataCache() {
+        ReferenceDataCache cache = new ReferenceDataCache(getLocalDirectory().resolve("reference.snapshot"));
+        long ttlMillis = Long.getLong("cafe.cache.ttlMillis", 0);
+        if (ttlMillis > 0) {
+            cache.startAutoRefresh(ttlMillis);
         }
+        return cache;
+    }
 
-        return employees;
+    /**
+     * Directory for files kept on this till (order journal, reference data copy);
+     * -Dcafe.journal.dir, default ~/.cafe
+     */
+    public static Path getLocalDirectory() {
+        return Paths.get(System.getProperty("cafe.journal.dir",
+                Paths.get(System.getProperty("user.home"), ".cafe").toString()));
     }
 
-    // Menu operations
-    public List<String> getAllMenuItems() {
-        List<String> menuItems = new ArrayList<>();
-      //   String query = "SELECT Nama_Menu + ' - Rp' + CAST(Harga AS VARCHAR(20)) as DisplayName FROM Menu WHERE Status_Menu = 1";
-        String query = "SELECT Nama_Menu + ' - Rp' + CAST(Harga AS VARCHAR(20)) as DisplayName FROM Menu";
+    /**
+     * Get the shared reference data cache
+     */
+    public static ReferenceDataCache getReferenceData() {
+        return referenceData;
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
+    /**
+     * Whether a connection can be opened right now; tells an unreachable
+     * database apart from one that refused a statement
+     */
+    public boolean isReachable() {
+        return DatabaseConnection.testConnection();
+    }
 
-            while (rs.next()) {
-                menuItems.add(rs.getString("DisplayName"));
-            }
+    // Employee operations
+    public List<Employee> getAllEmployees() {
+        MetricsRegistry.Span span = metrics.start("getAllEmployees");
+        try {
+            return referenceData.get().getEmployees();
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to fetch employees", e);
+            return new ArrayList<>();
+        } finally {
+            span.close();
+        }
+    }
 
+    // Menu operations
+    public List<MenuItem> getAllMenuItems() {
+        MetricsRegistry.Span span = metrics.start("getAllMenuItems");
+        try {
+            return referenceData.get().getMenuItems();
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to fetch menu items", e);
+            return new ArrayList<>();
+        } finally {
+            span.close();
         }
-
-        return menuItems;
     }
 
     // Table operations
-    public List<String> getAvailableTables() {
-        List<String> tables = new ArrayList<>();
-        String query = "SELECT Nomor_Meja, Kapasitas FROM Meja ORDER BY Nomor_Meja";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                String tableInfo = "Meja " + rs.getInt("Nomor_Meja") + " (Kapasitas: " + rs.getInt("Kapasitas") + ")";
-                tables.add(tableInfo);
-            }
-
+    public List<Table> getAvailableTables() {
+        MetricsRegistry.Span span = metrics.start("getAvailableTables");
+        try {
+            return referenceData.get().getTables();
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to fetch tables", e);
+            return new ArrayList<>();
+        } finally {
+            span.close();
         }
-
-        return tables;
     }
 
     // Payment methods
@@ -86,34 +113,45 @@ public class CafeDAO {
         return methods;
     }
 
-    // Order operations
-    public boolean insertOrder(String customerName, String employeeName, String tableInfo, 
-                              String orderDetails, String paymentMethod, List<String> selectedMenuItems) {
+    /**
+     * Insert an order and its details in one transaction
+     *
+     * @param employeeId ID_Pegawai of the cashier
+     * @param tableNumber Nomor_Meja
+     * @param orderDetails note stored with every detail row
+     * @param lines menu items ordered; lines for the same menu item are merged
+     *              into one detail row with their quantities summed
+     */
+    public boolean insertOrder(String customerName, int employeeId, int tableNumber,
+                               String orderDetails, String paymentMethod, List<OrderLine> lines) {
         
+        MetricsRegistry.Span span = metrics.start("insertOrder");
         Connection conn = null;
         try {
+            if (lines.isEmpty()) {
+                throw new SQLException("Order has no menu items");
+            }
+            List<OrderLine> aggregated = OrderLine.aggregate(lines);
+
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false); // Start transaction
 
-            // Get employee ID
-            int employeeId = getEmployeeId(employeeName);
-            
-            // Extract table number from table info
-            int tableNumber = extractTableNumber(tableInfo);
-
             // Insert main order
             String insertOrderQuery = """
-                INSERT INTO Pesanan (ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan, Metode_Pembayaran) 
-                VALUES (?, ?, ?, ?, ?)
+                INSERT INTO Pesanan (ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan, Metode_Pembayaran, Waktu_Pesanan)
+                VALUES (?, ?, ?, ?, ?, ?)
             """;
 
+            // Date and time from one reading of the clock, so they agree around midnight
+            LocalDateTime placedAt = LocalDateTime.now();
             int orderId;
             try (PreparedStatement stmt = conn.prepareStatement(insertOrderQuery, Statement.RETURN_GENERATED_KEYS)) {
                 stmt.setInt(1, employeeId);
                 stmt.setInt(2, tableNumber);
                 stmt.setString(3, customerName);
-                stmt.setDate(4, Date.valueOf(LocalDate.now()));
+                stmt.setDate(4, Date.valueOf(placedAt.toLocalDate()));
                 stmt.setString(5, paymentMethod);
+                stmt.setTimestamp(6, Timestamp.valueOf(placedAt));
 
                 int rowsAffected = stmt.executeUpdate();
                 
@@ -130,16 +168,16 @@ public class CafeDAO {
                 }
             }
 
-            // Insert order details
-            for (String menuItem : selectedMenuItems) {
-                insertOrderDetail(conn, orderId, menuItem, orderDetails);
-            }
+            // Insert all order details as one batch
+            insertOrderDetails(conn, orderId, aggregated, orderDetails);
 
             conn.commit(); // Commit transaction
-            logger.info("Order inserted successfully with ID: " + orderId);
+            span.rowsWritten(1 + aggregated.size());
+            logger.fine("Order inserted successfully with ID: " + orderId);
             return true;
 
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to insert order", e);
             if (conn != null) {
                 try {
@@ -156,96 +194,684 @@ public class CafeDAO {
                 } catch (SQLException e) {
                     logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
                 }
+                DatabaseConnection.closeConnection(conn); // Return to pool
             }
+            span.close();
         }
     }
 
-    private void insertOrderDetail(Connection conn, int orderId, String menuItem, String notes) throws SQLException {
-        // Extract menu ID from display name
-        int menuId = getMenuIdFromDisplayName(menuItem);
-        int price = getMenuPrice(menuId);
-
+    private void insertOrderDetails(Connection conn, int orderId, List<OrderLine> lines,
+                                    String notes) throws SQLException {
         String insertDetailQuery = """
-            INSERT INTO Detail_Pesanan (ID_Pesanan, ID_Menu, Catatan, Subtotal) 
-            VALUES (?, ?, ?, ?)
+            INSERT INTO Detail_Pesanan (ID_Pesanan, ID_Menu, Jumlah, Catatan, Subtotal)
+            VALUES (?, ?, ?, ?, ?)
         """;
 
         try (PreparedStatement stmt = conn.prepareStatement(insertDetailQuery)) {
-            stmt.setInt(1, orderId);
-            stmt.setInt(2, menuId);
-            stmt.setString(3, notes);
-            stmt.setInt(4, price);
+            for (OrderLine line : lines) {
+                stmt.setInt(1, orderId);
+                stmt.setInt(2, line.menuId());
+                stmt.setInt(3, line.quantity());
+                stmt.setString(4, notes);
+                stmt.setInt(5, line.subtotal());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Write a group of queued orders in one transaction (group commit).
+     * Orders whose Client_Key is already stored are skipped, so a group that
+     * was committed just before a crash can be replayed safely.
+     *
+     * @return true if every order is now in the database
+     */
+    public boolean insertOrders(List<QueuedOrder> orders) {
+        if (orders.isEmpty()) {
+            return true;
+        }
+
+        MetricsRegistry.Span span = metrics.start("insertOrders");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            Set<UUID> existing = findStoredClientKeys(conn, orders);
+            List<QueuedOrder> pending = new ArrayList<>(orders.size());
+            for (QueuedOrder order : orders) {
+                if (!existing.contains(order.clientKey())) {
+                    pending.add(order);
+                }
+            }
+
+            String insertOrderQuery = """
+                INSERT INTO Pesanan (ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan, Metode_Pembayaran, Client_Key, Waktu_Pesanan)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+            try (PreparedStatement stmt = conn.prepareStatement(insertOrderQuery)) {
+                for (QueuedOrder order : pending) {
+                    stmt.setInt(1, order.employeeId());
+                    stmt.setInt(2, order.tableNumber());
+                    stmt.setString(3, order.customerName());
+                    stmt.setDate(4, new Date(order.acceptedAtMillis()));
+                    stmt.setString(5, order.paymentMethod());
+                    stmt.setString(6, order.clientKey().toString());
+                    stmt.setTimestamp(7, new Timestamp(order.acceptedAtMillis()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            // Details find their order by client key, so no generated IDs are needed
+            String insertDetailQuery = """
+                INSERT INTO Detail_Pesanan (ID_Pesanan, ID_Menu, Jumlah, Catatan, Subtotal)
+                SELECT ID_Pesanan, ?, ?, ?, ? FROM Pesanan WHERE Client_Key = ?
+            """;
+
+            int detailRows = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(insertDetailQuery)) {
+                for (QueuedOrder order : pending) {
+                    for (OrderLine line : order.lines()) {
+                        stmt.setInt(1, line.menuId());
+                        stmt.setInt(2, line.quantity());
+                        stmt.setString(3, order.notes());
+                        stmt.setInt(4, line.subtotal());
+                        stmt.setString(5, order.clientKey().toString());
+                        stmt.addBatch();
+                        detailRows++;
+                    }
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            span.rowsWritten(pending.size() + detailRows);
+            logger.fine("Group commit wrote " + pending.size() + " order(s), skipped " + existing.size());
+            return true;
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to insert queued orders", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
+            }
+            span.close();
+        }
+    }
+
+    // Client keys per existence check; each is bound twice, under SQL Server's 2100 parameter limit
+    private static final int CLIENT_KEY_CHUNK_SIZE = 1000;
+
+    /**
+     * Placeholders for a chunk of client keys: the next power of two, at most a
+     * full chunk, so a handful of query texts cover every group size and stay
+     * in the pool's statement cache
+     */
+    private static int clientKeySlots(int keys) {
+        return keys <= 1 ? 1 : Math.min(CLIENT_KEY_CHUNK_SIZE, Integer.highestOneBit(keys - 1) << 1);
+    }
+
+    private Set<UUID> findStoredClientKeys(Connection conn, List<QueuedOrder> orders) throws SQLException {
+        Set<UUID> stored = new HashSet<>();
+        for (int start = 0; start < orders.size(); start += CLIENT_KEY_CHUNK_SIZE) {
+            int end = Math.min(orders.size(), start + CLIENT_KEY_CHUNK_SIZE);
+            int slots = clientKeySlots(end - start);
+            String placeholders = String.join(", ", Collections.nCopies(slots, "?"));
+            // A replayed order may already have been served and archived
+            String query = "SELECT Client_Key FROM Pesanan WHERE Client_Key IN (" + placeholders + ") "
+                + "UNION ALL SELECT Client_Key FROM Riwayat_Pesanan WHERE Client_Key IN (" + placeholders + ")";
 
-            stmt.executeUpdate();
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                int index = 1;
+                for (int repeat = 0; repeat < 2; repeat++) {
+                    // Spare slots repeat the last key, which IN ignores
+                    for (int i = 0; i < slots; i++) {
+                        stmt.setString(index++, orders.get(Math.min(start + i, end - 1)).clientKey().toString());
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        stored.add(UUID.fromString(rs.getString(1)));
+                    }
+                }
+            }
         }
+        return stored;
     }
 
-    // Get all orders for display
-    public Object[][] getAllOrders() {
-        List<Object[]> orders = new ArrayList<>();
-        String query = """
-            SELECT p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, 
+    // Rows per round trip when streaming orders
+    private static final int ORDER_FETCH_SIZE = 1000;
+
+    // Order board query; %s is the WHERE clause
+    private static final String ORDER_BOARD_QUERY = """
+            SELECT p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja,
                    p.Metode_Pembayaran,
-                   STRING_AGG(m.Nama_Menu, ', ') as Menu_Items,
+                   STRING_AGG(CASE WHEN dp.Jumlah > 1 THEN CONCAT(dp.Jumlah, 'x ', m.Nama_Menu) ELSE m.Nama_Menu END, ', ') as Menu_Items,
                    SUM(dp.Subtotal) as Total_Harga
             FROM Pesanan p
             LEFT JOIN Detail_Pesanan dp ON p.ID_Pesanan = dp.ID_Pesanan
             LEFT JOIN Menu m ON dp.ID_Menu = m.ID_Menu
+            %s
             GROUP BY p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, p.Metode_Pembayaran
             ORDER BY p.ID_Pesanan DESC
         """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
+    // Get all open orders for display, newest first
+    public List<Order> getAllOrders() {
+        List<Order> orders = new ArrayList<>();
+        forEachOpenOrder(orders::add);
+        return orders;
+    }
 
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getString("Nama_Pemesan"),
-                    "Meja " + rs.getInt("Nomor_Meja"),
-                    rs.getString("Menu_Items"),
-                    rs.getString("Metode_Pembayaran"),
-                    "Rp " + rs.getInt("Total_Harga")
-                };
-                orders.add(row);
+    /**
+     * Stream all open orders, newest first, to a callback as they are read.
+     * Only the rows of the current fetch are held in memory, so callers that
+     * don't keep every order (counting, exporting, summing) read any number
+     * of orders in constant heap. The connection stays borrowed until the
+     * callback has seen the last row; an exception thrown by the callback
+     * stops the read and propagates.
+     *
+     * @return orders read, or -1 on failure
+     */
+    public int forEachOpenOrder(Consumer<? super Order> action) {
+        String query = String.format(ORDER_BOARD_QUERY, "WHERE p.Status_Pesanan = 'O'");
+
+        MetricsRegistry.Span span = metrics.start("forEachOpenOrder");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DatabaseConnection.configureStreaming(stmt, ORDER_FETCH_SIZE);
+
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapOrderRow(rs));
+                    count++;
+                }
             }
+            span.rowsRead(count);
+            return count;
 
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to fetch orders", e);
+            return -1;
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Count the orders matching a query and find the highest ID among them
+     *
+     * @return {count, max ID_Pesanan}; max is 0 when there are no orders
+     */
+    public int[] getOrderCountAndMaxId(OrderQuery orderQuery) {
+        String query = "SELECT COUNT(*), ISNULL(MAX(p.ID_Pesanan), 0) FROM Pesanan p WHERE "
+            + filterClause(orderQuery);
+
+        MetricsRegistry.Span span = metrics.start("getOrderCountAndMaxId");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            bindFilter(stmt, 1, orderQuery);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new int[] { rs.getInt(1), rs.getInt(2) };
+                }
+            }
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to count orders", e);
+        } finally {
+            span.close();
+        }
+
+        return new int[] { 0, 0 };
+    }
+
+    /**
+     * Get one page of the order board.
+     * Only the page's Pesanan rows are aggregated. With an anchor the page is
+     * found by keyset seek; without one (a jump, or the anchor was served)
+     * OFFSET is used.
+     *
+     * @param orderQuery sort and filter
+     * @param upperBound only orders with ID_Pesanan at or below this are returned,
+     *                   so pages stay stable while new orders arrive
+     * @param afterId ID_Pesanan of the last row of the previous page, or 0 to use offset
+     * @param offset rows to skip when there is no anchor
+     * @param limit page size
+     */
+    public List<Order> getOrderPage(OrderQuery orderQuery, int upperBound, int afterId, int offset, int limit) {
+        List<Order> orders = new ArrayList<>();
+        String query = orderPageQuery(orderQuery, afterId > 0);
+
+        MetricsRegistry.Span span = metrics.start("getOrderPage");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            int index = 1;
+            if (afterId > 0) {
+                stmt.setInt(index++, limit);
+                stmt.setInt(index++, afterId);
+                stmt.setInt(index++, upperBound);
+                index = bindFilter(stmt, index, orderQuery);
+            } else {
+                stmt.setInt(index++, upperBound);
+                index = bindFilter(stmt, index, orderQuery);
+                stmt.setInt(index++, offset);
+                stmt.setInt(index++, limit);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapOrderRow(rs));
+                }
+            }
+            span.rowsRead(orders.size());
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to fetch order page", e);
+        } finally {
+            span.close();
+        }
+
+        return orders;
+    }
+
+    /**
+     * SQL of one order board page; parameters are bound by getOrderPage
+     *
+     * @param anchored keyset seek after an anchor row instead of OFFSET
+     */
+    static String orderPageQuery(OrderQuery orderQuery, boolean anchored) {
+        String orderBy = switch (orderQuery.sort()) {
+            case NEWEST -> "p.ID_Pesanan DESC";
+            case OLDEST -> "p.ID_Pesanan ASC";
+            case CUSTOMER -> "p.Nama_Pemesan, p.ID_Pesanan DESC";
+            case TABLE -> "p.Nomor_Meja, p.ID_Pesanan DESC";
+        };
+        String keyset = switch (orderQuery.sort()) {
+            case NEWEST -> "p.ID_Pesanan < a.ID_Pesanan";
+            case OLDEST -> "p.ID_Pesanan > a.ID_Pesanan";
+            case CUSTOMER -> "(p.Nama_Pemesan > a.Nama_Pemesan OR (p.Nama_Pemesan = a.Nama_Pemesan AND p.ID_Pesanan < a.ID_Pesanan))";
+            case TABLE -> "(p.Nomor_Meja > a.Nomor_Meja OR (p.Nomor_Meja = a.Nomor_Meja AND p.ID_Pesanan < a.ID_Pesanan))";
+        };
+
+        String pageQuery;
+        if (anchored) {
+            pageQuery = "SELECT TOP (?) p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, p.Metode_Pembayaran "
+                + "FROM Pesanan p CROSS JOIN (SELECT ID_Pesanan, Nama_Pemesan, Nomor_Meja FROM Pesanan WHERE ID_Pesanan = ?) a "
+                + "WHERE p.ID_Pesanan <= ? AND " + filterClause(orderQuery) + " AND " + keyset
+                + " ORDER BY " + orderBy;
+        } else {
+            pageQuery = "SELECT p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, p.Metode_Pembayaran "
+                + "FROM Pesanan p WHERE p.ID_Pesanan <= ? AND " + filterClause(orderQuery)
+                + " ORDER BY " + orderBy + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+        }
+
+        return "WITH page AS (" + pageQuery + ") " + """
+            SELECT p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, p.Metode_Pembayaran,
+                   STRING_AGG(CASE WHEN dp.Jumlah > 1 THEN CONCAT(dp.Jumlah, 'x ', m.Nama_Menu) ELSE m.Nama_Menu END, ', ') as Menu_Items,
+                   SUM(dp.Subtotal) as Total_Harga
+            FROM page p
+            LEFT JOIN Detail_Pesanan dp ON p.ID_Pesanan = dp.ID_Pesanan
+            LEFT JOIN Menu m ON dp.ID_Menu = m.ID_Menu
+            GROUP BY p.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja, p.Metode_Pembayaran
+            """ + "ORDER BY " + orderBy;
+    }
+
+    /**
+     * Get orders added after the watermark that match the query, plus how many
+     * matching orders remain at or below it. Both come back in one round trip;
+     * new orders are found with a primary key range seek.
+     *
+     * @param watermark highest ID_Pesanan the caller already has
+     */
+    public OrderDelta getOrdersChangedSince(int watermark, OrderQuery orderQuery) {
+        List<Order> added = new ArrayList<>();
+        int remainingCount = 0;
+
+        String deltaQuery = String.format(ORDER_BOARD_QUERY, "WHERE p.ID_Pesanan > ? AND " + filterClause(orderQuery))
+            + "; SELECT COUNT(*) FROM Pesanan p WHERE p.ID_Pesanan <= ? AND " + filterClause(orderQuery);
+
+        MetricsRegistry.Span span = metrics.start("getOrdersChangedSince");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(deltaQuery)) {
+
+            int index = 1;
+            stmt.setInt(index++, watermark);
+            index = bindFilter(stmt, index, orderQuery);
+            stmt.setInt(index++, watermark);
+            bindFilter(stmt, index, orderQuery);
+            stmt.execute();
+
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    added.add(mapOrderRow(rs));
+                }
+            }
+            stmt.getMoreResults();
+            try (ResultSet rs = stmt.getResultSet()) {
+                rs.next();
+                remainingCount = rs.getInt(1);
+            }
+            span.rowsRead(added.size());
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to fetch order changes", e);
+            return null;
+        } finally {
+            span.close();
+        }
+
+        return new OrderDelta(added, remainingCount);
+    }
+
+    // The board shows open orders only; the literal lets SQL Server use the filtered indexes
+    private static String filterClause(OrderQuery orderQuery) {
+        return orderQuery.customerFilter() == null ? "p.Status_Pesanan = 'O'"
+            : "p.Status_Pesanan = 'O' AND p.Nama_Pemesan LIKE ? ESCAPE '\\'";
+    }
+
+    private static int bindFilter(PreparedStatement stmt, int index, OrderQuery orderQuery) throws SQLException {
+        String filter = orderQuery.customerFilter();
+        if (filter == null) {
+            return index;
+        }
+        String escaped = filter.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace("[", "\\[");
+        stmt.setString(index, escaped + "%");
+        return index + 1;
+    }
+
+    private Order mapOrderRow(ResultSet rs) throws SQLException {
+        return new Order(
+            rs.getInt("ID_Pesanan"),
+            rs.getString("Nama_Pemesan"),
+            rs.getInt("Nomor_Meja"),
+            rs.getString("Metode_Pembayaran"),
+            rs.getString("Menu_Items"),
+            rs.getInt("Total_Harga"));
+    }
+
+    /**
+     * Newest ID_Perubahan in the order change log
+     *
+     * @return the ID, 0 if the log is empty, or -1 if it couldn't be read
+     */
+    public long getLatestOrderChangeId() {
+        MetricsRegistry.Span span = metrics.start("getLatestOrderChangeId");
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT ISNULL(MAX(ID_Perubahan), 0) FROM Pesanan_Perubahan")) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to read the order change log", e);
+            return -1;
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Order changes after a change ID, oldest first, with the board row of every
+     * added order, in one round trip
+     *
+     * @return at most limit changes, or null if they couldn't be read
+     */
+    public List<OrderChange> getOrderChanges(long afterChangeId, int limit) {
+        String changesQuery = """
+            SELECT TOP (?) ID_Perubahan, Jenis, ID_Pesanan, ID_Detail, Nama_Pemesan
+            FROM Pesanan_Perubahan
+            WHERE ID_Perubahan > ?
+            ORDER BY ID_Perubahan;
+        """ + String.format(ORDER_BOARD_QUERY, """
+            WHERE p.Status_Pesanan = 'O'
+              AND p.ID_Pesanan IN (SELECT TOP (?) ID_Pesanan FROM Pesanan_Perubahan
+                                   WHERE ID_Perubahan > ? AND Jenis = 'I' ORDER BY ID_Perubahan)
+            """);
+
+        List<OrderChange> changes = new ArrayList<>();
+        MetricsRegistry.Span span = metrics.start("getOrderChanges");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(changesQuery)) {
+
+            stmt.setInt(1, limit);
+            stmt.setLong(2, afterChangeId);
+            stmt.setInt(3, limit);
+            stmt.setLong(4, afterChangeId);
+            stmt.execute();
+
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    changes.add(new OrderChange(rs.getLong("ID_Perubahan"),
+                        OrderChange.Kind.fromCode(rs.getString("Jenis")), rs.getInt("ID_Pesanan"),
+                        rs.getInt("ID_Detail"), rs.getString("Nama_Pemesan"), null));
+                }
+            }
+
+            Map<Integer, Order> addedOrders = new HashMap<>();
+            stmt.getMoreResults();
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    Order order = mapOrderRow(rs);
+                    addedOrders.put(order.id(), order);
+                }
+            }
+            span.rowsRead(changes.size() + addedOrders.size());
+
+            for (int i = 0; i < changes.size(); i++) {
+                OrderChange change = changes.get(i);
+                if (change.kind() == OrderChange.Kind.INSERTED) {
+                    changes.set(i, new OrderChange(change.changeId(), change.kind(), change.orderId(),
+                        change.detailId(), change.customerName(), addedOrders.get(change.orderId())));
+                }
+            }
+            return changes;
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to read order changes", e);
+            return null;
+        } finally {
+            span.close();
         }
+    }
 
-        return orders.toArray(new Object[0][]);
+    /**
+     * Delete change log entries older than the given age
+     *
+     * @return number of entries deleted
+     */
+    public int purgeOrderChanges(int keepMinutes) {
+        MetricsRegistry.Span span = metrics.start("purgeOrderChanges");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "DELETE FROM Pesanan_Perubahan WHERE Waktu < DATEADD(MINUTE, -?, SYSDATETIME())")) {
+            stmt.setInt(1, keepMinutes);
+            int deleted = stmt.executeUpdate();
+            span.rowsWritten(deleted);
+            return deleted;
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to purge the order change log", e);
+            return 0;
+        } finally {
+            span.close();
+        }
     }
 
-    // Delete order (for "Layani" - serve order)
-    public boolean deleteOrder(int orderId) {
+    // SQL Server allows 2100 parameters per statement; IDs are bound in chunks of this size
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // Kitchen display lines; %s narrows the open lines further
+    private static final String KITCHEN_LINES_QUERY = """
+            SELECT dp.ID_Detail, dp.ID_Pesanan, p.Nama_Pemesan, p.Nomor_Meja,
+                   m.Nama_Menu, m.Kategori, dp.Jumlah, dp.Catatan
+            FROM Detail_Pesanan dp
+            JOIN Pesanan p ON p.ID_Pesanan = dp.ID_Pesanan
+            JOIN Menu m ON m.ID_Menu = dp.ID_Menu
+            WHERE dp.Selesai = 0 AND p.Status_Pesanan = 'O' %s
+            ORDER BY dp.ID_Pesanan, dp.ID_Detail
+        """;
+
+    /**
+     * All order lines not marked done yet, oldest order first
+     */
+    public List<KitchenLine> getOpenKitchenLines() {
+        return queryKitchenLines(new int[0]);
+    }
+
+    /**
+     * Open lines of the given orders, e.g. ones the change feed just announced
+     */
+    public List<KitchenLine> getOpenKitchenLines(int[] orderIds) {
+        if (orderIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return queryKitchenLines(orderIds);
+    }
+
+    private List<KitchenLine> queryKitchenLines(int[] orderIds) {
+        List<KitchenLine> lines = new ArrayList<>();
+        MetricsRegistry.Span span = metrics.start("getOpenKitchenLines");
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // No IDs means all open lines; otherwise one query per chunk of IDs
+            int chunks = orderIds.length == 0 ? 1 : (orderIds.length + ID_CHUNK_SIZE - 1) / ID_CHUNK_SIZE;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int start = chunk * ID_CHUNK_SIZE;
+                int end = Math.min(orderIds.length, start + ID_CHUNK_SIZE);
+                String where = orderIds.length == 0 ? ""
+                    : "AND dp.ID_Pesanan IN (" + String.join(", ", Collections.nCopies(end - start, "?")) + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(String.format(KITCHEN_LINES_QUERY, where))) {
+                    for (int i = start; i < end; i++) {
+                        stmt.setInt(i - start + 1, orderIds[i]);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            lines.add(new KitchenLine(rs.getInt("ID_Detail"), rs.getInt("ID_Pesanan"),
+                                rs.getString("Nama_Pemesan"), rs.getInt("Nomor_Meja"), rs.getString("Nama_Menu"),
+                                rs.getString("Kategori"), rs.getInt("Jumlah"), rs.getString("Catatan")));
+                        }
+                    }
+                }
+            }
+            span.rowsRead(lines.size());
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to fetch kitchen lines", e);
+        } finally {
+            span.close();
+        }
+        return lines;
+    }
+
+    /**
+     * Mark order lines as prepared; the order itself stays until it is served
+     *
+     * @return number of lines newly marked done
+     */
+    public int markLinesDone(int[] detailIds) {
+        if (detailIds.length == 0) {
+            return 0;
+        }
+
+        MetricsRegistry.Span span = metrics.start("markLinesDone");
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int updated = 0;
+            for (int start = 0; start < detailIds.length; start += ID_CHUNK_SIZE) {
+                int end = Math.min(detailIds.length, start + ID_CHUNK_SIZE);
+                String placeholders = String.join(", ", Collections.nCopies(end - start, "?"));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Detail_Pesanan SET Selesai = 1 WHERE Selesai = 0 AND ID_Detail IN (" + placeholders + ")")) {
+                    for (int i = start; i < end; i++) {
+                        stmt.setInt(i - start + 1, detailIds[i]);
+                    }
+                    updated += stmt.executeUpdate();
+                }
+            }
+            span.rowsWritten(updated);
+            return updated;
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to mark order lines done", e);
+            return 0;
+        } finally {
+            span.close();
+        }
+    }
+
+    // Serve order ("Layani"); the rows stay until OrderArchiver moves them to history
+    public boolean serveOrder(int orderId) {
+        return serveOrders(new int[] { orderId }) > 0;
+    }
+
+    /**
+     * Serve several orders in one transaction.
+     * Orders are marked served ('S') by primary key, one statement per chunk
+     * of IDs; their details are left alone until the order is archived.
+     *
+     * @return number of open orders served, or 0 if the transaction failed
+     */
+    public int serveOrders(int[] orderIds) {
+        if (orderIds.length == 0) {
+            return 0;
+        }
+
+        MetricsRegistry.Span span = metrics.start("serveOrders");
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            // Delete order details first
-            String deleteDetailsQuery = "DELETE FROM Detail_Pesanan WHERE ID_Pesanan = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteDetailsQuery)) {
-                stmt.setInt(1, orderId);
-                stmt.executeUpdate();
-            }
+            int served = 0;
+            for (int start = 0; start < orderIds.length; start += ID_CHUNK_SIZE) {
+                int end = Math.min(orderIds.length, start + ID_CHUNK_SIZE);
+                String placeholders = String.join(", ", Collections.nCopies(end - start, "?"));
 
-            // Delete main order
-            String deleteOrderQuery = "DELETE FROM Pesanan WHERE ID_Pesanan = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteOrderQuery)) {
-                stmt.setInt(1, orderId);
-                int rowsAffected = stmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    conn.commit();
-                    logger.info("Order served/deleted successfully");
-                    return true;
+                String serveQuery = "UPDATE Pesanan SET Status_Pesanan = 'S', Waktu_Dilayani = SYSDATETIME() "
+                    + "WHERE Status_Pesanan = 'O' AND ID_Pesanan IN (" + placeholders + ")";
+
+                try (PreparedStatement stmt = conn.prepareStatement(serveQuery)) {
+                    for (int i = start; i < end; i++) {
+                        stmt.setInt(i - start + 1, orderIds[i]);
+                    }
+                    served += stmt.executeUpdate();
                 }
             }
 
+            conn.commit();
+            span.rowsWritten(served);
+            logger.fine("Served " + served + " order(s)");
+            return served;
+
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to serve/delete order", e);
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to serve orders", e);
             if (conn != null) {
                 try {
                     conn.rollback();
@@ -260,27 +886,27 @@ public class CafeDAO {
                 } catch (SQLException e) {
                     logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
                 }
+                DatabaseConnection.closeConnection(conn); // Return to pool
             }
+            span.close();
         }
 
-        return false;
+        return 0;
     }
 
-    // Delete order by customer details (for serving orders without ID column)
-    public boolean deleteOrderByDetails(String customerName, String tableInfo, String menuItems) {
+    // Serve order by customer details (legacy; prefer serveOrder with the hidden ID column)
+    public boolean serveOrderByDetails(String customerName, int tableNumber) {
+        MetricsRegistry.Span span = metrics.start("serveOrderByDetails");
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            // Extract table number from table info (e.g., "Meja 1" -> 1)
-            int tableNumber = extractTableNumber(tableInfo);
-
             // Find the order ID based on customer name and table
             String findOrderQuery = """
-                SELECT TOP 1 p.ID_Pesanan 
-                FROM Pesanan p 
-                WHERE p.Nama_Pemesan = ? AND p.Nomor_Meja = ?
+                SELECT TOP 1 p.ID_Pesanan
+                FROM Pesanan p
+                WHERE p.Nama_Pemesan = ? AND p.Nomor_Meja = ? AND p.Status_Pesanan = 'O'
                 ORDER BY p.ID_Pesanan DESC
             """;
             
@@ -293,33 +919,28 @@ public class CafeDAO {
                 if (rs.next()) {
                     orderId = rs.getInt("ID_Pesanan");
                 } else {
-                    logger.warning("Order not found for customer: " + customerName + " at " + tableInfo);
+                    logger.warning("Order not found for customer: " + customerName + " at table " + tableNumber);
                     return false;
                 }
             }
 
-            // Delete order details first
-            String deleteDetailsQuery = "DELETE FROM Detail_Pesanan WHERE ID_Pesanan = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteDetailsQuery)) {
-                stmt.setInt(1, orderId);
-                stmt.executeUpdate();
-            }
-
-            // Delete main order
-            String deleteOrderQuery = "DELETE FROM Pesanan WHERE ID_Pesanan = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteOrderQuery)) {
+            String serveOrderQuery = "UPDATE Pesanan SET Status_Pesanan = 'S', Waktu_Dilayani = SYSDATETIME() "
+                + "WHERE ID_Pesanan = ? AND Status_Pesanan = 'O'";
+            try (PreparedStatement stmt = conn.prepareStatement(serveOrderQuery)) {
                 stmt.setInt(1, orderId);
                 int rowsAffected = stmt.executeUpdate();
                 
                 if (rowsAffected > 0) {
                     conn.commit();
-                    logger.info("Order served/deleted successfully for: " + customerName);
+                    span.rowsWritten(rowsAffected);
+                    logger.fine("Order served successfully for: " + customerName);
                     return true;
                 }
             }
 
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to serve/delete order by details", e);
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to serve order by details", e);
             if (conn != null) {
                 try {
                     conn.rollback();
@@ -334,230 +955,201 @@ public class CafeDAO {
                 } catch (SQLException e) {
                     logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
                 }
+                DatabaseConnection.closeConnection(conn); // Return to pool
             }
+            span.close();
         }
 
         return false;
     }
 
-    // Helper methods
-    private int getEmployeeId(String employeeName) throws SQLException {
-        String query = "SELECT ID_Pegawai FROM Pegawai WHERE Nama_Pegawai = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    /**
+     * Move one batch of closed orders, oldest first, to Riwayat_Pesanan and
+     * Riwayat_Detail_Pesanan in one transaction. A month partition is split
+     * in before the first order of that month arrives. Only orders already
+     * counted in the sales rollups are moved. An application lock keeps
+     * archivers on other tills from working on the same batch.
+     *
+     * @param afterMinutes only orders closed at least this long ago are moved
+     * @param batchSize maximum orders moved
+     * @return orders moved, 0 if another till holds the lock, or -1 on failure
+     */
+    public int archiveClosedOrders(int afterMinutes, int batchSize) {
+        String archiveQuery = """
+            SET NOCOUNT ON;
+            -- Implicit transactions don't start on EXEC, and a Transaction-owned lock needs one
+            IF @@TRANCOUNT = 0 BEGIN TRANSACTION;
+            DECLARE @lock INT;
+            EXEC @lock = sp_getapplock @Resource = 'cafe.archive', @LockMode = 'Exclusive',
+                                       @LockOwner = 'Transaction', @LockTimeout = 0;
+            IF @lock < 0
+            BEGIN
+                SELECT @lock;
+                RETURN;
+            END;
+
+            DECLARE @batch TABLE (ID_Pesanan INT PRIMARY KEY, Tanggal_Pesanan DATE NOT NULL);
+            INSERT INTO @batch (ID_Pesanan, Tanggal_Pesanan)
+            SELECT TOP (?) ID_Pesanan, Tanggal_Pesanan
+            FROM Pesanan
+            WHERE Status_Pesanan IN ('S', 'V') AND Waktu_Dilayani < DATEADD(MINUTE, -?, SYSDATETIME())
+              AND ID_Pesanan <= (SELECT ID_Terakhir FROM Rekap_Posisi WHERE Nama = 'Pesanan') -- already in the sales rollups
+            ORDER BY Waktu_Dilayani;
+
+            DECLARE @month DATE;
+            WHILE 1 = 1
+            BEGIN
+                SET @month = NULL;
+                SELECT TOP 1 @month = m.Bulan
+                FROM (SELECT DISTINCT DATEFROMPARTS(YEAR(Tanggal_Pesanan), MONTH(Tanggal_Pesanan), 1) AS Bulan FROM @batch) m
+                WHERE NOT EXISTS (SELECT 1 FROM sys.partition_range_values v
+                                  JOIN sys.partition_functions f ON f.function_id = v.function_id
+                                  WHERE f.name = 'PF_Riwayat_Bulan' AND CAST(v.value AS DATE) = m.Bulan);
+                IF @month IS NULL BREAK;
+                ALTER PARTITION SCHEME PS_Riwayat_Bulan NEXT USED [PRIMARY];
+                ALTER PARTITION FUNCTION PF_Riwayat_Bulan() SPLIT RANGE (@month);
+            END;
+
+            INSERT INTO Riwayat_Pesanan (ID_Pesanan, ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan,
+                                         Metode_Pembayaran, Client_Key, Status_Pesanan, Waktu_Dilayani, Waktu_Pesanan)
+            SELECT p.ID_Pesanan, p.ID_Pegawai, p.Nomor_Meja, p.Nama_Pemesan, p.Tanggal_Pesanan,
+                   p.Metode_Pembayaran, p.Client_Key, p.Status_Pesanan, p.Waktu_Dilayani, p.Waktu_Pesanan
+            FROM Pesanan p JOIN @batch b ON b.ID_Pesanan = p.ID_Pesanan;
+
+            INSERT INTO Riwayat_Detail_Pesanan (ID_Detail, ID_Pesanan, Tanggal_Pesanan, ID_Menu, Catatan, Jumlah, Subtotal)
+            SELECT dp.ID_Detail, dp.ID_Pesanan, b.Tanggal_Pesanan, dp.ID_Menu, dp.Catatan, dp.Jumlah, dp.Subtotal
+            FROM Detail_Pesanan dp JOIN @batch b ON b.ID_Pesanan = dp.ID_Pesanan;
+
+            DELETE dp FROM Detail_Pesanan dp JOIN @batch b ON b.ID_Pesanan = dp.ID_Pesanan;
+            DELETE p FROM Pesanan p JOIN @batch b ON b.ID_Pesanan = p.ID_Pesanan;
+
+            SELECT COUNT(*) FROM @batch;
+        """;
 
-            stmt.setString(1, employeeName);
-            ResultSet rs = stmt.executeQuery();
+        MetricsRegistry.Span span = metrics.start("archiveClosedOrders");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
 
-            if (rs.next()) {
-                return rs.getInt("ID_Pegawai");
+            int archived = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(archiveQuery)) {
+                stmt.setInt(1, batchSize);
+                stmt.setInt(2, afterMinutes);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        archived = rs.getInt(1);
+                    }
+                }
             }
-        }
 
-        throw new SQLException("Employee not found: " + employeeName);
-    }
-
-    private int extractTableNumber(String tableInfo) {
-        try {
-            // Extract number from "Meja X (Kapasitas: Y)" format
-            String[] parts = tableInfo.split(" ");
-            if (parts.length >= 2) {
-                return Integer.parseInt(parts[1]);
+            conn.commit();
+            if (archived == -1) {
+                return 0; // Lock timeout: another till is archiving
             }
-        } catch (NumberFormatException e) {
-            logger.log(Level.WARNING, "Failed to parse table number from: " + tableInfo, e);
-        }
-
-        return 1; // Default to table 1 if parsing fails
-    }
-
-    private int getMenuIdFromDisplayName(String displayName) throws SQLException {
-        // Extract menu name from "MenuName - RpPrice" format
-        String menuName = displayName.split(" - Rp")[0];
-        
-        String query = "SELECT ID_Menu FROM Menu WHERE Nama_Menu = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, menuName);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt("ID_Menu");
+            if (archived < 0) {
+                throw new SQLException("sp_getapplock failed for cafe.archive with " + archived);
             }
-        }
+            span.rowsWritten(archived);
+            return archived;
 
-        throw new SQLException("Menu not found: " + menuName);
-    }
-
-    private int getMenuPrice(int menuId) throws SQLException {
-        String query = "SELECT Harga FROM Menu WHERE ID_Menu = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, menuId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt("Harga");
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to archive closed orders", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
             }
+            span.close();
         }
-
-        throw new SQLException("Menu price not found for ID: " + menuId);
     }
 
     // Initialize sample data
     public void initializeSampleData() {
+        MetricsRegistry.Span span = metrics.start("initializeSampleData");
         try (Connection conn = DatabaseConnection.getConnection()) {
             // First, create tables if they don't exist
             createDatabaseSchema(conn);
             
-            // Then insert sample data
-            insertSeedEmployees(conn);
-            insertSeedMenuItems(conn);
-            insertSeedTables(conn);
+            // Then insert sample data, only into tables that are still empty
+            String emptyCheck = """
+                SELECT CASE WHEN EXISTS (SELECT 1 FROM Pegawai) THEN 1 ELSE 0 END,
+                       CASE WHEN EXISTS (SELECT 1 FROM Menu) THEN 1 ELSE 0 END,
+                       CASE WHEN EXISTS (SELECT 1 FROM Meja) THEN 1 ELSE 0 END
+            """;
+
+            boolean hasEmployees, hasMenuItems, hasTables;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(emptyCheck)) {
+                rs.next();
+                hasEmployees = rs.getInt(1) == 1;
+                hasMenuItems = rs.getInt(2) == 1;
+                hasTables = rs.getInt(3) == 1;
+            }
+
+            if (hasEmployees && hasMenuItems && hasTables) {
+                logger.fine("Sample data already present, skipping seed");
+                return;
+            }
+            if (!hasEmployees) {
+                insertSeedEmployees(conn);
+            }
+            if (!hasMenuItems) {
+                insertSeedMenuItems(conn);
+            }
+            if (!hasTables) {
+                insertSeedTables(conn);
+            }
+            referenceData.invalidate();
             
             logger.info("Sample data initialized successfully");
             
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to initialize sample data", e);
+        } finally {
+            span.close();
         }
     }
 
+    private static final SchemaMigrator schemaMigrator = new SchemaMigrator();
+
     /**
-     * Create database schema programmatically
+     * Create or upgrade the database schema from the versioned migration scripts
      */
     private void createDatabaseSchema(Connection conn) throws SQLException {
-        logger.info("Creating database schema...");
-        
-        // Create Meja table first (referenced by Pesanan)
-        String createMejaTable = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Meja]') AND type in (N'U'))
-            BEGIN
-                CREATE TABLE Meja(
-                    Nomor_Meja INT PRIMARY KEY IDENTITY(1,1),
-                    Kapasitas INT NOT NULL
-                );
-            END
-        """;
-        
-        // Create Pegawai table
-        String createPegawaiTable = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Pegawai]') AND type in (N'U'))
-            BEGIN
-                CREATE TABLE Pegawai(
-                    ID_Pegawai INT PRIMARY KEY IDENTITY(101,1),
-                    Nama_Pegawai VARCHAR(50) NOT NULL,
-                    Tanggal_Lahir DATE NOT NULL,
-                    No_Telpon VARCHAR(20) NOT NULL,
-                    Alamat VARCHAR(200) NOT NULL,
-                    Gaji INT NOT NULL,
-                    Umur AS DATEDIFF(YEAR, Tanggal_Lahir, GETDATE())
-                );
-            END
-        """;
-        
-        // Create Menu table
-        String createMenuTable = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Menu]') AND type in (N'U'))
-            BEGIN
-                CREATE TABLE Menu(
-                    ID_Menu INT PRIMARY KEY IDENTITY(200,1),
-                    Nama_Menu VARCHAR(50) NOT NULL,
-                    Kategori VARCHAR(50) NOT NULL,
-                    Harga INT NOT NULL,
-                    Deskripsi VARCHAR(100),
-                    Status_Menu BIT NOT NULL
-                );
-            END
-        """;
-        
-        // Create Pesanan table
-        String createPesananTable = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Pesanan]') AND type in (N'U'))
-            BEGIN
-                CREATE TABLE Pesanan(
-                    ID_Pesanan INT PRIMARY KEY IDENTITY (301, 1),
-                    ID_Pegawai INT FOREIGN KEY REFERENCES Pegawai(ID_Pegawai),
-                    Nomor_Meja INT FOREIGN KEY REFERENCES Meja(Nomor_Meja),
-                    Nama_Pemesan VARCHAR(40) NOT NULL,
-                    Tanggal_Pesanan DATE NOT NULL,
-                    Metode_Pembayaran VARCHAR(20) NOT NULL
-                );
-            END
-        """;
-        
-        // Create Detail_Pesanan table
-        String createDetailPesananTable = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[Detail_Pesanan]') AND type in (N'U'))
-            BEGIN
-                CREATE TABLE Detail_Pesanan(
-                    ID_Detail INT PRIMARY KEY IDENTITY(401,1),
-                    ID_Pesanan INT FOREIGN KEY REFERENCES Pesanan(ID_Pesanan),
-                    ID_Menu INT FOREIGN KEY REFERENCES Menu(ID_Menu),
-                    Catatan VARCHAR(100),
-                    Subtotal INT NOT NULL
-                );
-            END
-        """;
-        
-        // Create view for table reservation status
-        String createStatusView = """
-            IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[StatusReservasiMeja]') AND type in (N'V'))
-            BEGIN
-                EXEC('CREATE VIEW StatusReservasiMeja AS
-                SELECT 
-                    m.Nomor_Meja,
-                    m.Kapasitas,
-                    CASE 
-                        WHEN EXISTS (
-                            SELECT 1 
-                            FROM Pesanan p 
-                            WHERE p.Nomor_Meja = m.Nomor_Meja
-                        )
-                        THEN ''Terpakai''
-                        ELSE ''Tersedia''
-                    END AS Status_Reservasi
-                FROM Meja m');
-            END
-        """;
-        
-        // Execute table creation statements
-        try (Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(createMejaTable);
-            logger.info("Meja table created/verified");
-            
-            stmt.executeUpdate(createPegawaiTable);
-            logger.info("Pegawai table created/verified");
-            
-            stmt.executeUpdate(createMenuTable);
-            logger.info("Menu table created/verified");
-            
-            stmt.executeUpdate(createPesananTable);
-            logger.info("Pesanan table created/verified");
-            
-            stmt.executeUpdate(createDetailPesananTable);
-            logger.info("Detail_Pesanan table created/verified");
-            
-            stmt.executeUpdate(createStatusView);
-            logger.info("StatusReservasiMeja view created/verified");
+        int applied = schemaMigrator.migrate(conn);
+        if (applied > 0) {
+            logger.info("Database schema migrated to version " + schemaMigrator.getLatestVersion());
         }
-        
-        logger.info("Database schema creation completed");
     }
 
     // Comprehensive seeding functionality
     public boolean seedDatabase() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        MetricsRegistry.Span span = metrics.start("seedDatabase");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
             logger.info("Starting comprehensive database seeding...");
             
             // First, create tables if they don't exist
             createDatabaseSchema(conn);
             
-            // Clear existing data first
+            // Clear and re-seed as one transaction
+            conn.setAutoCommit(false);
             clearAllData(conn);
             
             // Insert fresh seed data
@@ -565,72 +1157,66 @@ public class CafeDAO {
             insertSeedMenuItems(conn);
             insertSeedTables(conn);
             insertSampleOrders(conn);
+            conn.commit();
+            referenceData.invalidate();
             
             logger.info("Database seeding completed successfully");
             return true;
             
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to seed database", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            referenceData.invalidate();
             return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
+            }
+            span.close();
         }
     }
 
     private void clearAllData(Connection conn) throws SQLException {
         logger.info("Clearing existing data...");
-        
-        // Check if tables exist before trying to delete from them
-        try (Statement stmt = conn.createStatement()) {
-            // Delete in correct order due to foreign key constraints
-            if (tableExists(conn, "Detail_Pesanan")) {
-                stmt.executeUpdate("DELETE FROM Detail_Pesanan");
-            }
-            if (tableExists(conn, "Pesanan")) {
-                stmt.executeUpdate("DELETE FROM Pesanan");
-            }
-            if (tableExists(conn, "Menu")) {
-                stmt.executeUpdate("DELETE FROM Menu");
-            }
-            if (tableExists(conn, "Pegawai")) {
-                stmt.executeUpdate("DELETE FROM Pegawai");
-            }
-            if (tableExists(conn, "Meja")) {
-                stmt.executeUpdate("DELETE FROM Meja");
-            }
-            
-            // Reset identity seeds if tables exist
-            if (tableExists(conn, "Meja")) {
-                stmt.executeUpdate("DBCC CHECKIDENT ('Meja', RESEED, 0)");
-            }
-            if (tableExists(conn, "Pegawai")) {
-                stmt.executeUpdate("DBCC CHECKIDENT ('Pegawai', RESEED, 100)");
-            }
-            if (tableExists(conn, "Menu")) {
-                stmt.executeUpdate("DBCC CHECKIDENT ('Menu', RESEED, 199)");
-            }
-            if (tableExists(conn, "Pesanan")) {
-                stmt.executeUpdate("DBCC CHECKIDENT ('Pesanan', RESEED, 300)");
-            }
-            if (tableExists(conn, "Detail_Pesanan")) {
-                stmt.executeUpdate("DBCC CHECKIDENT ('Detail_Pesanan', RESEED, 400)");
-            }
-        }
-    }
 
-    /**
-     * Check if a table exists in the database
-     */
-    private boolean tableExists(Connection conn, String tableName) throws SQLException {
-        String query = "SELECT COUNT(*) FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[" + tableName + "]') AND type in (N'U')";
-        
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
+        // One round trip: delete in foreign key order, then reset identity seeds,
+        // skipping any table that doesn't exist
+        String clearQuery = """
+            IF OBJECT_ID(N'[dbo].[Rekap_Menu]', N'U') IS NOT NULL DELETE FROM Rekap_Menu;
+            IF OBJECT_ID(N'[dbo].[Rekap_Pegawai]', N'U') IS NOT NULL DELETE FROM Rekap_Pegawai;
+            IF OBJECT_ID(N'[dbo].[Rekap_Meja]', N'U') IS NOT NULL DELETE FROM Rekap_Meja;
+            IF OBJECT_ID(N'[dbo].[Rekap_Pembayaran]', N'U') IS NOT NULL DELETE FROM Rekap_Pembayaran;
+            IF OBJECT_ID(N'[dbo].[Rekap_Posisi]', N'U') IS NOT NULL UPDATE Rekap_Posisi SET ID_Terakhir = 0;
+            IF OBJECT_ID(N'[dbo].[Riwayat_Detail_Pesanan]', N'U') IS NOT NULL DELETE FROM Riwayat_Detail_Pesanan;
+            IF OBJECT_ID(N'[dbo].[Riwayat_Pesanan]', N'U') IS NOT NULL DELETE FROM Riwayat_Pesanan;
+            IF OBJECT_ID(N'[dbo].[Detail_Pesanan]', N'U') IS NOT NULL DELETE FROM Detail_Pesanan;
+            IF OBJECT_ID(N'[dbo].[Pesanan]', N'U') IS NOT NULL DELETE FROM Pesanan;
+            IF OBJECT_ID(N'[dbo].[Menu]', N'U') IS NOT NULL DELETE FROM Menu;
+            IF OBJECT_ID(N'[dbo].[Pegawai]', N'U') IS NOT NULL DELETE FROM Pegawai;
+            IF OBJECT_ID(N'[dbo].[Meja]', N'U') IS NOT NULL DELETE FROM Meja;
+
+            IF OBJECT_ID(N'[dbo].[Meja]', N'U') IS NOT NULL DBCC CHECKIDENT ('Meja', RESEED, 0) WITH NO_INFOMSGS;
+            IF OBJECT_ID(N'[dbo].[Pegawai]', N'U') IS NOT NULL DBCC CHECKIDENT ('Pegawai', RESEED, 100) WITH NO_INFOMSGS;
+            IF OBJECT_ID(N'[dbo].[Menu]', N'U') IS NOT NULL DBCC CHECKIDENT ('Menu', RESEED, 199) WITH NO_INFOMSGS;
+            IF OBJECT_ID(N'[dbo].[Pesanan]', N'U') IS NOT NULL DBCC CHECKIDENT ('Pesanan', RESEED, 300) WITH NO_INFOMSGS;
+            IF OBJECT_ID(N'[dbo].[Detail_Pesanan]', N'U') IS NOT NULL DBCC CHECKIDENT ('Detail_Pesanan', RESEED, 400) WITH NO_INFOMSGS;
+        """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(clearQuery);
         }
-        
-        return false;
     }
 
     private void insertSeedEmployees(Connection conn) throws SQLException {
@@ -644,15 +1230,16 @@ public class CafeDAO {
             {"Siti Rahma", "1995-07-22", "081678901234", "Jl. Melati No.45", "4500000"}
         };
 
-        for (String[] emp : employees) {
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (String[] emp : employees) {
                 stmt.setString(1, emp[0]); // Name
                 stmt.setDate(2, Date.valueOf(emp[1])); // Birth date
                 stmt.setString(3, emp[2]); // Phone
                 stmt.setString(4, emp[3]); // Address
                 stmt.setInt(5, Integer.parseInt(emp[4])); // Salary
-                stmt.executeUpdate();
+                stmt.addBatch();
             }
+            stmt.executeBatch();
         }
         logger.info("Inserted seed employees");
     }
@@ -678,15 +1265,16 @@ public class CafeDAO {
             {"Fried Rice", "Makanan", "23000", "Nasi goreng ala western", "1"}
         };
 
-        for (String[] item : menuItems) {
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (String[] item : menuItems) {
                 stmt.setString(1, item[0]); // Name
                 stmt.setString(2, item[1]); // Category
                 stmt.setInt(3, Integer.parseInt(item[2])); // Price
                 stmt.setString(4, item[3]); // Description
                 stmt.setBoolean(5, Boolean.parseBoolean(item[4])); // Status
-                stmt.executeUpdate();
+                stmt.addBatch();
             }
+            stmt.executeBatch();
         }
         logger.info("Inserted seed menu items");
     }
@@ -696,11 +1284,12 @@ public class CafeDAO {
 
         int[] capacities = {2, 4, 6, 8, 3, 4, 3, 2, 6, 4};
 
-        for (int capacity : capacities) {
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            for (int capacity : capacities) {
                 stmt.setInt(1, capacity);
-                stmt.executeUpdate();
+                stmt.addBatch();
             }
+            stmt.executeBatch();
         }
         logger.info("Inserted seed tables");
     }
@@ -710,80 +1299,162 @@ public class CafeDAO {
         String orderQuery = "INSERT INTO Pesanan (ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan, Metode_Pembayaran) VALUES (?, ?, ?, ?, ?)";
         String detailQuery = "INSERT INTO Detail_Pesanan (ID_Pesanan, ID_Menu, Catatan, Subtotal) VALUES (?, ?, ?, ?)";
 
-        // Sample order 1
-        try (PreparedStatement stmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, 101); // First employee
-            stmt.setInt(2, 1); // Table 1
-            stmt.setString(3, "John Doe");
-            stmt.setDate(4, new Date(System.currentTimeMillis()));
-            stmt.setString(5, "Cash");
-            stmt.executeUpdate();
-
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                int orderId = rs.getInt(1);
-                
-                // Add order details
-                try (PreparedStatement detailStmt = conn.prepareStatement(detailQuery)) {
-                    detailStmt.setInt(1, orderId);
-                    detailStmt.setInt(2, 200); // First menu item
-                    detailStmt.setString(3, "Extra pedas");
-                    detailStmt.setInt(4, 25000);
-                    detailStmt.executeUpdate();
-
-                    detailStmt.setInt(1, orderId);
-                    detailStmt.setInt(2, 201); // Second menu item
-                    detailStmt.setString(3, "");
-                    detailStmt.setInt(4, 8000);
-                    detailStmt.executeUpdate();
-                }
-            }
-        }
-
-        // Sample order 2
-        try (PreparedStatement stmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, 102); // Second employee
-            stmt.setInt(2, 3); // Table 3
-            stmt.setString(3, "Jane Smith");
-            stmt.setDate(4, new Date(System.currentTimeMillis()));
-            stmt.setString(5, "Credit Card");
-            stmt.executeUpdate();
-
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                int orderId = rs.getInt(1);
-                
-                // Add order details
-                try (PreparedStatement detailStmt = conn.prepareStatement(detailQuery)) {
-                    detailStmt.setInt(1, orderId);
-                    detailStmt.setInt(2, 206); // Coffee Latte
-                    detailStmt.setString(3, "Extra shot");
-                    detailStmt.setInt(4, 20000);
-                    detailStmt.executeUpdate();
+        // {employee, table, customer, payment}, then {menu ID, note, subtotal} per detail
+        Object[][][] sampleOrders = {
+            {
+                {101, 1, "John Doe", "Cash"},
+                {200, "Extra pedas", 25000}, // First menu item
+                {201, "", 8000}              // Second menu item
+            },
+            {
+                {102, 3, "Jane Smith", "Credit Card"},
+                {206, "Extra shot", 20000},  // Coffee Latte
+                {209, "", 25000}             // Pancake
+            }
+        };
 
-                    detailStmt.setInt(1, orderId);
-                    detailStmt.setInt(2, 209); // Pancake
-                    detailStmt.setString(3, "");
-                    detailStmt.setInt(4, 25000);
-                    detailStmt.executeUpdate();
+        try (PreparedStatement stmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement detailStmt = conn.prepareStatement(detailQuery)) {
+
+            for (Object[][] order : sampleOrders) {
+                Object[] header = order[0];
+                stmt.setInt(1, (Integer) header[0]);
+                stmt.setInt(2, (Integer) header[1]);
+                stmt.setString(3, (String) header[2]);
+                stmt.setDate(4, new Date(System.currentTimeMillis()));
+                stmt.setString(5, (String) header[3]);
+                stmt.executeUpdate();
+
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Creating sample order failed, no ID obtained");
+                    }
+                    int orderId = rs.getInt(1);
+
+                    // Add order details
+                    for (int i = 1; i < order.length; i++) {
+                        detailStmt.setInt(1, orderId);
+                        detailStmt.setInt(2, (Integer) order[i][0]);
+                        detailStmt.setString(3, (String) order[i][1]);
+                        detailStmt.setInt(4, (Integer) order[i][2]);
+                        detailStmt.addBatch();
+                    }
                 }
             }
+            detailStmt.executeBatch();
         }
 
         logger.info("Inserted sample orders");
     }
 
+    // Orders generated per transaction; keeps the log and lock footprint bounded
+    private static final int LOAD_TEST_CHUNK_SIZE = 100000;
+
+    /**
+     * Generate a large synthetic order history for load testing.
+     * Rows are produced set-based on the server from a numbers CTE, so no
+     * row data crosses the network; employees, tables, menu items and payment
+     * methods are spread round-robin over the existing reference data.
+     *
+     * @param orderCount orders to add
+     * @param itemsPerOrder detail rows per order
+     * @return true if every chunk was written
+     */
+    public boolean generateLoadTestOrders(int orderCount, int itemsPerOrder) {
+        String generateQuery = """
+            DECLARE @before INT = ISNULL((SELECT MAX(ID_Pesanan) FROM Pesanan), 0);
+            DECLARE @employees INT = (SELECT COUNT(*) FROM Pegawai);
+            DECLARE @tables INT = (SELECT COUNT(*) FROM Meja);
+            DECLARE @menus INT = (SELECT COUNT(*) FROM Menu);
+
+            WITH n AS (
+                SELECT TOP (?) ROW_NUMBER() OVER (ORDER BY (SELECT NULL)) + ? AS i
+                FROM sys.all_columns a CROSS JOIN sys.all_columns b
+            ),
+            e AS (SELECT ID_Pegawai, ROW_NUMBER() OVER (ORDER BY ID_Pegawai) - 1 AS rn FROM Pegawai),
+            t AS (SELECT Nomor_Meja, ROW_NUMBER() OVER (ORDER BY Nomor_Meja) - 1 AS rn FROM Meja)
+            INSERT INTO Pesanan (ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan, Metode_Pembayaran, Waktu_Pesanan)
+            SELECT e.ID_Pegawai, t.Nomor_Meja,
+                   'Pelanggan ' + CAST(n.i AS VARCHAR(12)),
+                   DATEADD(DAY, -(n.i % 365), CAST(GETDATE() AS DATE)),
+                   CHOOSE(n.i % 4 + 1, 'Cash', 'Debit Card', 'Credit Card', 'E-Wallet'),
+                   DATEADD(MINUTE, 420 + n.i % 900, CAST(DATEADD(DAY, -(n.i % 365), CAST(GETDATE() AS DATE)) AS DATETIME2(0)))
+            FROM n
+            JOIN e ON e.rn = n.i % @employees
+            JOIN t ON t.rn = n.i % @tables
+            ORDER BY n.i;
+
+            WITH j AS (SELECT TOP (?) ROW_NUMBER() OVER (ORDER BY (SELECT NULL)) AS k FROM sys.all_columns),
+            m AS (SELECT ID_Menu, Harga, ROW_NUMBER() OVER (ORDER BY ID_Menu) - 1 AS rn FROM Menu)
+            INSERT INTO Detail_Pesanan (ID_Pesanan, ID_Menu, Catatan, Subtotal)
+            SELECT p.ID_Pesanan, m.ID_Menu, NULL, m.Harga
+            FROM Pesanan p
+            CROSS JOIN j
+            JOIN m ON m.rn = (p.ID_Pesanan + j.k) % @menus
+            WHERE p.ID_Pesanan > @before;
+        """;
+
+        MetricsRegistry.Span span = metrics.start("generateLoadTestOrders");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(generateQuery)) {
+                for (int done = 0; done < orderCount; done += LOAD_TEST_CHUNK_SIZE) {
+                    int chunk = Math.min(LOAD_TEST_CHUNK_SIZE, orderCount - done);
+                    stmt.setInt(1, chunk);
+                    stmt.setInt(2, done);
+                    stmt.setInt(3, itemsPerOrder);
+                    stmt.execute();
+                    conn.commit();
+                    span.rowsWritten(chunk);
+                    logger.info("Generated " + (done + chunk) + " of " + orderCount + " load test orders");
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to generate load test orders", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
+            }
+            span.close();
+        }
+    }
+
     /**
      * Safely clear all data from database
      */
     public boolean clearDatabaseSafely() {
+        MetricsRegistry.Span span = metrics.start("clearDatabaseSafely");
         try (Connection conn = DatabaseConnection.getConnection()) {
             clearAllData(conn);
+            referenceData.invalidate();
             logger.info("Database cleared successfully");
             return true;
         } catch (SQLException e) {
+            span.failed();
             logger.log(Level.SEVERE, "Failed to clear database", e);
+            referenceData.invalidate();
             return false;
+        } finally {
+            span.close();
         }
     }
 }
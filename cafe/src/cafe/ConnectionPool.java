@@ -0,0 +1,543 @@
+package cafe;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool used by {@link DatabaseConnection}.
+ * Connections handed out are proxies; closing them returns the physical
+ * connection to the pool instead of closing it.
+ *
+ * Each physical connection also keeps its most recently used prepared
+ * statements open. Preparing the same SQL again on that connection reuses
+ * the driver statement, so SQL Server runs it from its prepared handle
+ * instead of parsing the text again, and closing it puts it back.
+ */
+public class ConnectionPool {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Idle connections younger than this are trusted without a validation round trip
+    private static final long VALIDATION_INTERVAL_MILLIS = 1000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 5000;
+
+    /**
+     * Source of physical connections (DriverManager, an embedded driver, a stub in tests)
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    /**
+     * Create a pool and start its housekeeping thread
+     *
+     * @param factory creates physical connections
+     * @param minSize idle connections kept warm
+     * @param maxSize upper bound on physical connections
+     * @param borrowTimeoutMillis how long a borrower waits before failing
+     * @param idleTimeoutMillis idle connections above minSize are closed after this
+     * @param leakThresholdMillis borrowers holding a connection longer than this are logged, 0 disables;
+     *        when enabled every borrow captures the borrower's stack, so keep it for debugging
+     * @param statementCacheSize prepared statements kept open per connection, 0 disables
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                          int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cafe-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MILLIS, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout for one to free up.
+     * Closing the returned connection gives it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (max " + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    break;
+                }
+                discard(entry);
+            }
+            if (entry == null) {
+                entry = new PooledEntry(factory.create());
+            }
+
+            entry.borrowedAt = System.nanoTime();
+            entry.borrower = leakThresholdMillis > 0
+                    ? new Throwable("Connection borrowed by " + Thread.currentThread().getName())
+                    : null;
+            entry.leakReported = false;
+            borrowed.add(entry);
+            return entry.newHandle();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close all idle connections and stop accepting borrows.
+     * Borrowed connections are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry);
+        }
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * prepareStatement calls served by a statement already open on the connection
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * prepareStatement calls that had to create a driver statement
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * Cached statements closed to make room for more recently used SQL
+     */
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.sum();
+    }
+
+    /**
+     * Share of prepareStatement calls served from the cache, 0 before the first call
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            if (entry.physical.isClosed()) {
+                return false;
+            }
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.returnedAt);
+            return idleMillis < VALIDATION_INTERVAL_MILLIS
+                    || entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Pooled connection failed validation", e);
+            return false;
+        }
+    }
+
+    private void giveBack(PooledEntry entry) {
+        borrowed.remove(entry);
+        try {
+            boolean reusable = !closed && !entry.physical.isClosed();
+            if (reusable && !entry.physical.getAutoCommit()) {
+                // Never hand an open transaction to the next borrower
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                entry.returnedAt = System.nanoTime();
+                entry.borrower = null;
+                idle.offerFirst(entry);
+            } else {
+                discard(entry);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Discarding pooled connection that failed to reset", e);
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Failed to close discarded connection", e);
+        }
+    }
+
+    /**
+     * Evict idle connections, top the pool up to minSize and report leaks
+     */
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minSize) {
+                PooledEntry entry = it.next();
+                if (TimeUnit.NANOSECONDS.toMillis(now - entry.returnedAt) > idleTimeoutMillis && idle.remove(entry)) {
+                    discard(entry);
+                }
+            }
+
+            while (!closed && idle.size() + borrowed.size() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledEntry entry = new PooledEntry(factory.create());
+                    entry.returnedAt = System.nanoTime();
+                    idle.offerLast(entry);
+                } finally {
+                    permits.release();
+                }
+            }
+
+            if (leakThresholdMillis > 0) {
+                for (PooledEntry entry : borrowed) {
+                    long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - entry.borrowedAt);
+                    if (!entry.leakReported && heldMillis > leakThresholdMillis) {
+                        entry.leakReported = true;
+                        logger.log(Level.WARNING, "Possible connection leak: held for " + heldMillis + " ms", entry.borrower);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    /**
+     * A physical connection plus its bookkeeping
+     */
+    private final class PooledEntry {
+        final Connection physical;
+        // Only changed under the borrowing Handle's lock; a handle hands its statements
+        // back before the connection is returned, so borrowers never share it
+        final StatementCache statements;
+        volatile long borrowedAt;
+        volatile long returnedAt;
+        volatile Throwable borrower;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0 ? new StatementCache() : null;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Per-borrow view of a pooled connection; close() returns it exactly once,
+     * closing the statements it prepared first, as closing a connection would
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private final List<CachedStatement> openStatements = new ArrayList<>();
+        private volatile boolean released;
+
+        Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (released) {
+                            return null;
+                        }
+                        released = true;
+                        for (CachedStatement statement : openStatements) {
+                            statement.releaseTo(entry.statements);
+                        }
+                        openStatements.clear();
+                    }
+                    giveBack(entry);
+                    return null;
+                case "isClosed":
+                    return released || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (entry.statements != null && StatementKey.isCacheable(method)) {
+                synchronized (this) {
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    return entry.statements.prepare(entry.physical, this, (Connection) proxy, method, args);
+                }
+            }
+            return forward(entry.physical, method, args);
+        }
+
+        /**
+         * A statement closed by its borrower; false once the handle itself was closed
+         */
+        synchronized boolean closeStatement(CachedStatement statement) {
+            if (released || !openStatements.remove(statement)) {
+                return false;
+            }
+            statement.releaseTo(entry.statements);
+            return true;
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * SQL text plus the prepareStatement options; generated keys or a result set type
+     * give a different driver statement than the plain SQL
+     */
+    private record StatementKey(String sql, int option, int concurrency) {
+
+        // prepareStatement(String), (String, int autoGeneratedKeys) and (String, int type, int concurrency)
+        static boolean isCacheable(Method method) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 1; i < types.length; i++) {
+                if (types[i] != int.class) {
+                    return false;
+                }
+            }
+            return types.length <= 3;
+        }
+
+        static StatementKey of(Object[] args) {
+            return new StatementKey((String) args[0],
+                    args.length > 1 ? (int) args[1] : 0,
+                    args.length > 2 ? (int) args[2] : 0);
+        }
+    }
+
+    /**
+     * Open prepared statements of one physical connection, least recently used first
+     */
+    private final class StatementCache {
+        private final Map<StatementKey, PreparedStatement> idleStatements = new LinkedHashMap<>();
+
+        PreparedStatement prepare(Connection physical, Handle owner, Connection handle, Method method, Object[] args)
+                throws Throwable {
+            StatementKey key = StatementKey.of(args);
+            PreparedStatement statement = idleStatements.remove(key);
+            if (statement != null && !statement.isClosed()) {
+                statementCacheHits.increment();
+            } else {
+                statementCacheMisses.increment();
+                statement = (PreparedStatement) forward(physical, method, args);
+            }
+            CachedStatement cached = new CachedStatement(owner, key, statement, handle);
+            owner.openStatements.add(cached);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    cached);
+        }
+
+        /**
+         * Take a statement back from its borrower; reset it as close() would, or close it
+         * if that fails or the cache already holds one for the same SQL
+         */
+        void release(StatementKey key, PreparedStatement statement) {
+            try {
+                if (statement.isClosed()) {
+                    return;
+                }
+                // Read past any results the borrower didn't
+                while (statement.getMoreResults() || statement.getUpdateCount() != -1) {
+                    // discard
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                statement.setFetchSize(0);
+                statement.setMaxRows(0);
+                statement.setQueryTimeout(0);
+
+                if (idleStatements.putIfAbsent(key, statement) != null) {
+                    statement.close();
+                    return;
+                }
+                if (idleStatements.size() > statementCacheSize) {
+                    Iterator<PreparedStatement> eldest = idleStatements.values().iterator();
+                    PreparedStatement evicted = eldest.next();
+                    eldest.remove();
+                    statementCacheEvictions.increment();
+                    evicted.close();
+                }
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Closing prepared statement that couldn't be reset", e);
+                try {
+                    statement.close();
+                } catch (SQLException ex) {
+                    logger.log(Level.FINE, "Failed to close prepared statement", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Borrowed view of a cached statement; it goes back to the cache exactly once,
+     * when it is closed or when its connection handle is, and is unusable after that
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final Handle owner;
+        private final StatementKey key;
+        private final PreparedStatement physical;
+        private final Connection handle;
+        private volatile boolean released;
+
+        CachedStatement(Handle owner, StatementKey key, PreparedStatement physical, Connection handle) {
+            this.owner = owner;
+            this.key = key;
+            this.physical = physical;
+            this.handle = handle;
+        }
+
+        /**
+         * Called under the owner's lock
+         */
+        void releaseTo(StatementCache cache) {
+            released = true;
+            cache.release(key, physical);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    owner.closeStatement(this);
+                    return null;
+                case "isClosed":
+                    return released || physical.isClosed();
+                case "getConnection":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Statement has already been closed");
+            }
+            return forward(physical, method, args);
+        }
+    }
+}
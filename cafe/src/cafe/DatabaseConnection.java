@@ -1,8 +1,10 @@
 package cafe;
 
+import com.microsoft.sqlserver.jdbc.SQLServerStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,50 +23,101 @@ public class DatabaseConnection {
     private static final String PASSWORD = "YourStrong!Passw0rd";
 
     // Connection URL
-    private static final String URL = String.format(
+    private static final String DEFAULT_URL = String.format(
             "jdbc:sqlserver://%s:%s;databaseName=%s;trustServerCertificate=true;encrypt=false",
             SERVER, PORT, DATABASE);
 
+    // Overridable with -Dcafe.db.* so the pool can point at another JDBC source
+    private static final String URL = System.getProperty("cafe.db.url", DEFAULT_URL);
+    private static final String DB_USER = System.getProperty("cafe.db.user", USERNAME);
+    private static final String DB_PASSWORD = System.getProperty("cafe.db.password", PASSWORD);
+
+    // Pool settings
+    private static final int POOL_MIN_SIZE = Integer.getInteger("cafe.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("cafe.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = Long.getLong("cafe.pool.borrowTimeoutMillis", 5000);
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = Long.getLong("cafe.pool.idleTimeoutMillis", 300000);
+    private static final long POOL_LEAK_THRESHOLD_MILLIS = Long.getLong("cafe.pool.leakThresholdMillis", 0);
+    private static final int POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("cafe.pool.statementCacheSize", 64);
+
+    private static final ConnectionPool pool = createPool();
+
+    // Time spent waiting for a pooled connection, including validation and opening new ones
+    private static final MetricsRegistry.Operation acquireMetrics = MetricsRegistry.get().operation("pool.acquire");
+
+    private static ConnectionPool createPool() {
+        try {
+            // Load SQL Server JDBC driver once, not on every connect
+            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+        } catch (ClassNotFoundException e) {
+            logger.log(Level.SEVERE, "SQL Server JDBC Driver not found", e);
+        }
+
+        ConnectionPool connectionPool = new ConnectionPool(() -> {
+            Connection connection = DriverManager.getConnection(URL, DB_USER, DB_PASSWORD);
+            logger.fine("Physical database connection opened");
+            return connection;
+        }, POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS,
+                POOL_STATEMENT_CACHE_SIZE);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(connectionPool::close, "cafe-pool-shutdown"));
+        MetricsRegistry.get().registerPool(connectionPool);
+        return connectionPool;
+    }
+
     /**
-     * Get a new database connection (not singleton)
-     * Each call returns a fresh connection that should be closed after use
+     * Borrow a connection from the pool
+     * Closing the returned connection gives it back to the pool
      * 
      * @return Connection object
      */
     public static Connection getConnection() {
+        long start = System.nanoTime();
         try {
-            // Load SQL Server JDBC driver
-            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-
-            // Create and return a new connection each time
-            Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            logger.info("Database connection established successfully");
+            Connection connection = pool.borrow();
+            acquireMetrics.record(System.nanoTime() - start, false);
             return connection;
-            
-        } catch (ClassNotFoundException e) {
-            logger.log(Level.SEVERE, "SQL Server JDBC Driver not found", e);
-            throw new RuntimeException("Database driver not found", e);
         } catch (SQLException e) {
+            acquireMetrics.record(System.nanoTime() - start, true);
             logger.log(Level.SEVERE, "Failed to connect to database", e);
             throw new RuntimeException("Failed to connect to database", e);
         }
     }
 
     /**
-     * Close a specific database connection
+     * Get the shared connection pool
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Return a connection to the pool
      * @param connection The connection to close
      */
     public static void closeConnection(Connection connection) {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
-                logger.info("Database connection closed successfully");
             }
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Failed to close database connection", e);
         }
     }
 
+    /**
+     * Set a statement up for reading a large result row by row: the driver
+     * fetches fetchSize rows per round trip and, with adaptive buffering,
+     * holds only rows not yet read instead of the whole result
+     */
+    public static void configureStreaming(Statement stmt, int fetchSize) throws SQLException {
+        stmt.setFetchSize(fetchSize);
+        // Explicit, so a responseBuffering=full in -Dcafe.db.url can't turn reads back into full copies
+        if (stmt.isWrapperFor(SQLServerStatement.class)) {
+            stmt.unwrap(SQLServerStatement.class).setResponseBuffering("adaptive");
+        }
+    }
+
     /**
      * Test database connection
      * 
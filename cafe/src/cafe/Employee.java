@@ -0,0 +1,10 @@
+package cafe;
+
+/**
+ * One row of Pegawai
+ *
+ * @param id ID_Pegawai
+ * @param name Nama_Pegawai
+ */
+public record Employee(int id, String name) {
+}
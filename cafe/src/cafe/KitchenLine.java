@@ -0,0 +1,17 @@
+package cafe;
+
+/**
+ * An open order line as shown on the kitchen display
+ *
+ * @param detailId ID_Detail
+ * @param orderId ID_Pesanan
+ * @param customerName Nama_Pemesan
+ * @param tableNumber Nomor_Meja
+ * @param menuName Nama_Menu
+ * @param category Kategori, which decides the station that prepares it
+ * @param quantity Jumlah
+ * @param notes Catatan, may be empty
+ */
+public record KitchenLine(int detailId, int orderId, String customerName, int tableNumber,
+                          String menuName, String category, int quantity, String notes) {
+}
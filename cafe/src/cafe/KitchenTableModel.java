@@ -0,0 +1,98 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Open order lines of one kitchen station, oldest order first.
+ * Lines are added and removed one change at a time; a station holds at most
+ * a few hundred lines, so plain list scans keep every update well under a
+ * millisecond. Must be used on the Event Dispatch Thread.
+ */
+@SuppressWarnings("serial") // Swing models are never serialized
+public class KitchenTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"Meja", "Pemesan", "Menu", "Jumlah", "Catatan"};
+
+    private final List<KitchenLine> lines = new ArrayList<>();
+
+    @Override
+    public int getRowCount() {
+        return lines.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        KitchenLine line = lines.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> "Meja " + line.tableNumber();
+            case 1 -> line.customerName();
+            case 2 -> line.menuName();
+            case 3 -> line.quantity();
+            default -> line.notes() == null ? "" : line.notes();
+        };
+    }
+
+    public KitchenLine getLine(int rowIndex) {
+        return lines.get(rowIndex);
+    }
+
+    /**
+     * Replace all lines, e.g. after a resync
+     */
+    public void setLines(Collection<KitchenLine> newLines) {
+        lines.clear();
+        lines.addAll(newLines);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add a line in order position; IDs only grow, so new orders usually land at the end
+     */
+    public void addLine(KitchenLine line) {
+        int index = lines.size();
+        while (index > 0 && isAfter(lines.get(index - 1), line)) {
+            index--;
+        }
+        lines.add(index, line);
+        fireTableRowsInserted(index, index);
+    }
+
+    public void removeLine(int detailId) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).detailId() == detailId) {
+                lines.remove(i);
+                fireTableRowsDeleted(i, i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove every line of an order, e.g. once it is served
+     */
+    public void removeOrder(int orderId) {
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            if (lines.get(i).orderId() == orderId) {
+                lines.remove(i);
+                fireTableRowsDeleted(i, i);
+            }
+        }
+    }
+
+    private static boolean isAfter(KitchenLine a, KitchenLine b) {
+        return a.orderId() != b.orderId() ? a.orderId() > b.orderId() : a.detailId() > b.detailId();
+    }
+}
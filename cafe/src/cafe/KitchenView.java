@@ -0,0 +1,405 @@
+package cafe;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+
+/**
+ * Kitchen display: open order lines split into one column per station
+ * (Menu.Kategori, e.g. Makanan and Minuman). Lines arrive through the
+ * {@link OrderChangeFeed}; only the lines of newly added orders are fetched,
+ * and served orders and lines marked done elsewhere are removed locally.
+ * Double-click a line, or select lines and press "Selesai", to mark them done.
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>cafe.kitchen.stations - categories to show, comma separated (default all)</li>
+ * </ul>
+ */
+@SuppressWarnings("serial") // Swing windows are never serialized
+public final class KitchenView extends JFrame {
+
+    private static final Logger logger = Logger.getLogger(KitchenView.class.getName());
+
+    // Fallback reload interval while the change feed is unavailable
+    private static final int POLL_MILLIS = 5000;
+
+    private final CafeDAO cafeDAO;
+    private final AsyncCafeDAO asyncDAO;
+    private final Set<String> stationFilter;
+
+    // Station name to its lines, in column order
+    private final Map<String, KitchenTableModel> stations = new LinkedHashMap<>();
+    // ID_Detail of every line on screen, so the same line is never added twice
+    private final Set<Integer> shownLines = new HashSet<>();
+    // Fetches still running; each records what the feed changed meanwhile
+    private final List<FetchWindow> openFetches = new ArrayList<>();
+    private final JPanel stationPanel = new JPanel();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final MetricsRegistry.Operation updateMetrics = MetricsRegistry.get().operation("kitchen.update");
+
+    private OrderChangeFeed orderFeed;
+    private Timer pollTimer;
+
+    /**
+     * What the feed added and removed while one fetch was running, so its
+     * result can be merged with the screen instead of overwriting it
+     */
+    private static final class FetchWindow {
+        final Set<Integer> addedLines = new HashSet<>();
+        final Set<Integer> removedLines = new HashSet<>();
+        final Set<Integer> removedOrders = new HashSet<>();
+
+        boolean wasRemoved(KitchenLine line) {
+            return removedLines.contains(line.detailId()) || removedOrders.contains(line.orderId());
+        }
+    }
+
+    public KitchenView(CafeDAO cafeDAO) {
+        this.cafeDAO = cafeDAO;
+        this.asyncDAO = new AsyncCafeDAO(cafeDAO);
+        String stationSetting = System.getProperty("cafe.kitchen.stations", "");
+        this.stationFilter = stationSetting.isBlank() ? Set.of()
+            : new HashSet<>(Arrays.asList(stationSetting.trim().split("\\s*,\\s*")));
+
+        setTitle("Nanaz Cafe - Dapur");
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(new Color(245, 240, 230));
+        setLayout(new BorderLayout(8, 8));
+
+        JLabel header = new JLabel("<< Dapur >>", SwingConstants.CENTER);
+        header.setFont(new Font("Grape Nuts", Font.BOLD, 28));
+        add(header, BorderLayout.NORTH);
+
+        stationPanel.setOpaque(false);
+        add(stationPanel, BorderLayout.CENTER);
+
+        JPanel footer = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        footer.setOpaque(false);
+        footer.add(statusLabel);
+        add(footer, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (orderFeed != null) {
+                    orderFeed.close();
+                }
+                if (pollTimer != null) {
+                    pollTimer.stop();
+                }
+                asyncDAO.shutdown();
+            }
+        });
+
+        setSize(1000, 600);
+        setLocationByPlatform(true);
+        initializeData();
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            if (!DatabaseConnection.testConnection()) {
+                JOptionPane.showMessageDialog(null,
+                    "Tidak dapat terhubung ke database. Pastikan SQL Server sudah berjalan.",
+                    "Database Error", JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            }
+            KitchenView view = new KitchenView(new CafeDAO());
+            view.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            view.setVisible(true);
+        });
+    }
+
+    /**
+     * Build the station columns from the menu categories, load the open lines, then follow the feed
+     */
+    private void initializeData() {
+        asyncDAO.submit(() -> {
+            Set<String> categories = new TreeSet<>();
+            for (MenuItem item : cafeDAO.getAllMenuItems()) {
+                categories.add(item.category());
+            }
+            return categories;
+        }).whenComplete((categories, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                logger.log(Level.SEVERE, "Failed to load menu categories", error);
+                return;
+            }
+            buildStations(categories);
+            reloadLines();
+            startFeed();
+        }));
+    }
+
+    private void buildStations(Set<String> categories) {
+        stationPanel.removeAll();
+        stations.clear();
+        for (String category : categories) {
+            if (!stationFilter.isEmpty() && !stationFilter.contains(category)) {
+                continue;
+            }
+            KitchenTableModel model = new KitchenTableModel();
+            stations.put(category, model);
+            stationPanel.add(createStationColumn(category, model));
+        }
+        stationPanel.setLayout(new GridLayout(1, Math.max(1, stations.size()), 8, 8));
+        stationPanel.revalidate();
+        stationPanel.repaint();
+    }
+
+    private JPanel createStationColumn(String category, KitchenTableModel model) {
+        JTable table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(60);  // Meja
+        table.getColumnModel().getColumn(1).setPreferredWidth(100); // Pemesan
+        table.getColumnModel().getColumn(2).setPreferredWidth(160); // Menu
+        table.getColumnModel().getColumn(3).setPreferredWidth(50);  // Jumlah
+        table.getColumnModel().getColumn(4).setPreferredWidth(140); // Catatan
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                if (e.getClickCount() == 2 && row >= 0) {
+                    markDone(model, new int[] { row });
+                }
+            }
+        });
+
+        JButton btnDone = new JButton("Selesai");
+        btnDone.setBackground(new Color(183, 198, 139));
+        btnDone.addActionListener(e -> markDone(model, table.getSelectedRows()));
+
+        JPanel column = new JPanel(new BorderLayout(4, 4));
+        column.setBackground(new Color(212, 180, 131));
+        column.setBorder(new TitledBorder(category));
+        column.add(new JScrollPane(table), BorderLayout.CENTER);
+        column.add(btnDone, BorderLayout.SOUTH);
+        return column;
+    }
+
+    /**
+     * Follow the change feed; fall back to reloading every few seconds while it is unavailable
+     */
+    private void startFeed() {
+        orderFeed = OrderChangeFeed.fromSystemProperties(cafeDAO, new OrderChangeFeed.Listener() {
+            @Override
+            public void ordersChanged(List<OrderChange> changes) {
+                long received = System.nanoTime();
+                applyChanges(changes, received);
+            }
+
+            @Override
+            public void resync() {
+                SwingUtilities.invokeLater(KitchenView.this::reloadLines);
+            }
+        });
+        if (orderFeed != null) {
+            orderFeed.start();
+        }
+
+        pollTimer = new Timer(POLL_MILLIS, e -> {
+            if (orderFeed == null || !orderFeed.isConnected()) {
+                reloadLines();
+            }
+        });
+        pollTimer.start();
+    }
+
+    /**
+     * Apply one batch from the feed; called on the feed thread.
+     * Removals are applied straight away, new orders once just their lines
+     * are fetched in the background.
+     */
+    private void applyChanges(List<OrderChange> changes, long receivedNanos) {
+        List<Integer> addedOrders = new ArrayList<>();
+        for (OrderChange change : changes) {
+            if (change.kind() == OrderChange.Kind.INSERTED && change.order() != null) {
+                addedOrders.add(change.orderId());
+            }
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            for (OrderChange change : changes) {
+                if (change.kind() == OrderChange.Kind.DELETED) {
+                    removeOrder(change.orderId());
+                } else if (change.kind() == OrderChange.Kind.LINE_DONE) {
+                    removeLine(change.detailId());
+                }
+            }
+            if (addedOrders.isEmpty()) {
+                updateMetrics.record(System.nanoTime() - receivedNanos, false);
+                updateStatus();
+                return;
+            }
+
+            int[] orderIds = addedOrders.stream().mapToInt(Integer::intValue).toArray();
+            FetchWindow window = openFetch();
+            asyncDAO.submit(() -> cafeDAO.getOpenKitchenLines(orderIds))
+                .whenComplete((lines, error) -> SwingUtilities.invokeLater(() -> {
+                    openFetches.remove(window);
+                    if (error != null) {
+                        logger.log(Level.SEVERE, "Failed to load kitchen lines of new orders", error);
+                        reloadLines();
+                        return;
+                    }
+                    for (KitchenLine line : lines) {
+                        // Served or finished while the lines were being fetched
+                        if (!window.wasRemoved(line)) {
+                            addLine(line);
+                        }
+                    }
+                    updateMetrics.record(System.nanoTime() - receivedNanos, false);
+                    updateStatus();
+                }));
+        });
+    }
+
+    /**
+     * Replace the screen with a fresh snapshot of the open lines, merged with
+     * whatever the feed added or removed while it was being read
+     */
+    private void reloadLines() {
+        FetchWindow window = openFetch();
+        asyncDAO.submit(cafeDAO::getOpenKitchenLines)
+            .whenComplete((lines, error) -> SwingUtilities.invokeLater(() -> {
+                openFetches.remove(window);
+                if (error != null) {
+                    logger.log(Level.SEVERE, "Failed to load kitchen lines", error);
+                    return;
+                }
+                Map<String, List<KitchenLine>> byStation = new LinkedHashMap<>();
+                for (String station : stations.keySet()) {
+                    byStation.put(station, new ArrayList<>());
+                }
+                Set<Integer> merged = new HashSet<>();
+                for (KitchenLine line : lines) {
+                    List<KitchenLine> stationLines = byStation.get(line.category());
+                    if (stationLines != null && !window.wasRemoved(line) && merged.add(line.detailId())) {
+                        stationLines.add(line);
+                    }
+                }
+                // Lines the feed added after the snapshot was read; addLine keeps them in order
+                List<KitchenLine> addedSince = new ArrayList<>();
+                for (KitchenTableModel model : stations.values()) {
+                    for (int row = 0; row < model.getRowCount(); row++) {
+                        KitchenLine line = model.getLine(row);
+                        if (window.addedLines.contains(line.detailId()) && !merged.contains(line.detailId())) {
+                            addedSince.add(line);
+                        }
+                    }
+                }
+
+                shownLines.clear();
+                shownLines.addAll(merged);
+                for (Map.Entry<String, List<KitchenLine>> entry : byStation.entrySet()) {
+                    stations.get(entry.getKey()).setLines(entry.getValue());
+                }
+                for (KitchenLine line : addedSince) {
+                    addLine(line);
+                }
+                updateStatus();
+            }));
+    }
+
+    private FetchWindow openFetch() {
+        FetchWindow window = new FetchWindow();
+        openFetches.add(window);
+        return window;
+    }
+
+    private void addLine(KitchenLine line) {
+        KitchenTableModel model = stations.get(line.category());
+        if (model != null && shownLines.add(line.detailId())) {
+            model.addLine(line);
+            for (FetchWindow window : openFetches) {
+                window.addedLines.add(line.detailId());
+            }
+        }
+    }
+
+    private void removeLine(int detailId) {
+        for (FetchWindow window : openFetches) {
+            window.removedLines.add(detailId);
+        }
+        if (shownLines.remove(detailId)) {
+            for (KitchenTableModel model : stations.values()) {
+                model.removeLine(detailId);
+            }
+        }
+    }
+
+    private void removeOrder(int orderId) {
+        for (FetchWindow window : openFetches) {
+            window.removedOrders.add(orderId);
+        }
+        for (KitchenTableModel model : stations.values()) {
+            for (int row = 0; row < model.getRowCount(); row++) {
+                KitchenLine line = model.getLine(row);
+                if (line.orderId() == orderId) {
+                    shownLines.remove(line.detailId());
+                }
+            }
+            model.removeOrder(orderId);
+        }
+    }
+
+    private void markDone(KitchenTableModel model, int[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        int[] detailIds = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            detailIds[i] = model.getLine(rows[i]).detailId();
+        }
+
+        asyncDAO.submit(() -> cafeDAO.markLinesDone(detailIds))
+            .whenComplete((updated, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    logger.log(Level.SEVERE, "Failed to mark lines done", error);
+                    JOptionPane.showMessageDialog(this,
+                        "Gagal menandai pesanan selesai. Silakan coba lagi.",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (updated < detailIds.length) {
+                    // Failed, or some lines were finished or served elsewhere; show what's really open
+                    reloadLines();
+                    return;
+                }
+                for (int detailId : detailIds) {
+                    removeLine(detailId);
+                }
+                updateStatus();
+            }));
+    }
+
+    private void updateStatus() {
+        StringBuilder status = new StringBuilder();
+        for (Map.Entry<String, KitchenTableModel> entry : stations.entrySet()) {
+            if (status.length() > 0) {
+                status.append("   ");
+            }
+            status.append(entry.getKey()).append(": ").append(entry.getValue().getRowCount()).append(" item");
+        }
+        statusLabel.setText(status.toString());
+    }
+}
@@ -0,0 +1,274 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless load driver for {@link CafeDAO}.
+ * Simulates a number of cashiers, each on its own virtual thread, placing,
+ * listing and serving orders against the database configured with
+ * -Dcafe.db.url, and reports throughput and latency percentiles per operation.
+ *
+ * <pre>
+ * java -cp "lib/*:build/classes" -Dcafe.load.cashiers=20 cafe.LoadTest
+ * </pre>
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>cafe.load.cashiers - concurrent cashiers (default 10)</li>
+ *   <li>cafe.load.durationSeconds - measured run time (default 30)</li>
+ *   <li>cafe.load.warmupSeconds - unmeasured run time before that (default 5)</li>
+ *   <li>cafe.load.mix - operation weights, e.g. insert=60,list=30,delete=10</li>
+ *   <li>cafe.load.thinkMillis - mean pause between a cashier's operations (default 100)</li>
+ *   <li>cafe.load.maxItems - menu items per order, 1 to this (default 5)</li>
+ *   <li>cafe.load.preloadOrders - orders generated before the run (default 0)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private static final Logger logger = Logger.getLogger(LoadTest.class.getName());
+
+    private static final String[] PAYMENT_METHODS = {"Cash", "Debit Card", "Credit Card", "E-Wallet"};
+    // Served orders are taken from the oldest end of the board, this many at a time
+    private static final int DELETE_CANDIDATE_BATCH = 200;
+
+    /**
+     * Operations a cashier performs
+     */
+    public enum Operation {
+        INSERT, LIST, DELETE
+    }
+
+    private final CafeDAO dao;
+    private final int cashiers;
+    private final long thinkMillis;
+    private final int maxItems;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> failures = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<Integer> deleteCandidates = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean measuring;
+    private volatile boolean running;
+
+    public LoadTest(CafeDAO dao, int cashiers, long thinkMillis, int maxItems, Map<Operation, Integer> mix) {
+        this.dao = dao;
+        this.cashiers = cashiers;
+        this.thinkMillis = thinkMillis;
+        this.maxItems = maxItems;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Operation mix has no positive weights: " + mix);
+        }
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyHistogram());
+            failures.put(op, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cashiers = Integer.getInteger("cafe.load.cashiers", 10);
+        long durationSeconds = Long.getLong("cafe.load.durationSeconds", 30);
+        long warmupSeconds = Long.getLong("cafe.load.warmupSeconds", 5);
+        long thinkMillis = Long.getLong("cafe.load.thinkMillis", 100);
+        int maxItems = Integer.getInteger("cafe.load.maxItems", 5);
+        int preloadOrders = Integer.getInteger("cafe.load.preloadOrders", 0);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("cafe.load.mix", "insert=60,list=30,delete=10"));
+
+        CafeDAO dao = new CafeDAO();
+        dao.initializeSampleData();
+        if (preloadOrders > 0 && !dao.generateLoadTestOrders(preloadOrders, maxItems)) {
+            System.err.println("Failed to preload orders");
+            System.exit(1);
+        }
+
+        LoadTest test = new LoadTest(dao, cashiers, thinkMillis, maxItems, mix);
+        test.run(warmupSeconds, durationSeconds);
+        System.out.print(test.report(durationSeconds));
+        System.exit(0);
+    }
+
+    /**
+     * Parse "insert=60,list=30,delete=10"; operations left out get weight 0
+     */
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            mix.put(op, 0);
+        }
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid operation mix entry: " + part);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    /**
+     * Run all cashiers for the warmup, reset the numbers, then run for the measured duration
+     */
+    public void run(long warmupSeconds, long durationSeconds) throws InterruptedException {
+        running = true;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < cashiers; i++) {
+            executor.submit(this::cashierLoop);
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        for (Operation op : Operation.values()) {
+            latencies.get(op).reset();
+            failures.get(op).set(0);
+        }
+        measuring = true;
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        measuring = false;
+
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            logger.warning("Cashiers did not finish within a minute of the end of the run");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Throughput and latency per operation, plus pool state
+     */
+    public String report(long durationSeconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Cashiers: %d, duration: %ds, think time: %dms, mix: %s%n",
+                cashiers, durationSeconds, thinkMillis, mix));
+        long totalOps = 0;
+        for (Operation op : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(op);
+            totalOps += histogram.getCount();
+            out.append(String.format("%-7s %8.1f ops/s  failed=%d  %s%n", op,
+                    (double) histogram.getCount() / durationSeconds, failures.get(op).get(), histogram.summary()));
+        }
+        out.append(String.format("Total   %8.1f ops/s%n", (double) totalOps / durationSeconds));
+        ConnectionPool pool = DatabaseConnection.getPool();
+        out.append(String.format("Pool: %d active, %d idle, max %d%n",
+                pool.getActiveCount(), pool.getIdleCount(), pool.getMaxSize()));
+        out.append(String.format("Statement cache: %.1f%% hits (%d hits, %d misses, %d evictions)%n",
+                pool.getStatementCacheHitRate() * 100, pool.getStatementCacheHits(),
+                pool.getStatementCacheMisses(), pool.getStatementCacheEvictions()));
+        return out.toString();
+    }
+
+    private void cashierLoop() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running && !Thread.currentThread().isInterrupted()) {
+            Operation op = pickOperation(random);
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = perform(op, random);
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Load test operation failed: " + op, e);
+                ok = false;
+            }
+            if (measuring) {
+                latencies.get(op).recordSince(start);
+                if (!ok) {
+                    failures.get(op).incrementAndGet();
+                }
+            }
+            think(random);
+        }
+    }
+
+    private Operation pickOperation(ThreadLocalRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.LIST;
+    }
+
+    private boolean perform(Operation op, ThreadLocalRandom random) {
+        switch (op) {
+            case INSERT:
+                return placeOrder(random);
+            case LIST:
+                // Streamed, so simulated tills don't each hold a copy of the board
+                return dao.forEachOpenOrder(order -> { }) >= 0;
+            case DELETE:
+                Integer orderId = nextDeleteCandidate();
+                return orderId != null && dao.serveOrder(orderId);
+            default:
+                throw new IllegalStateException("Unknown operation " + op);
+        }
+    }
+
+    private boolean placeOrder(ThreadLocalRandom random) {
+        List<Employee> employees = dao.getAllEmployees();
+        List<Table> tables = dao.getAvailableTables();
+        List<MenuItem> menuItems = dao.getAllMenuItems();
+        if (employees.isEmpty() || tables.isEmpty() || menuItems.isEmpty()) {
+            return false;
+        }
+
+        int itemCount = 1 + random.nextInt(maxItems);
+        List<OrderLine> lines = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            lines.add(OrderLine.of(menuItems.get(random.nextInt(menuItems.size()))));
+        }
+
+        return dao.insertOrder("Load " + Thread.currentThread().threadId(),
+                employees.get(random.nextInt(employees.size())).id(),
+                tables.get(random.nextInt(tables.size())).number(),
+                "", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)], lines);
+    }
+
+    /**
+     * Next order to serve; refills from the oldest orders when the queue runs dry.
+     * The refill is part of the timed operation, as finding the order is for a cashier.
+     */
+    private Integer nextDeleteCandidate() {
+        Integer orderId = deleteCandidates.poll();
+        if (orderId == null) {
+            synchronized (deleteCandidates) {
+                orderId = deleteCandidates.poll();
+                if (orderId == null) {
+                    for (Order order : dao.getOrderPage(OrderQuery.DEFAULT.withSort(OrderQuery.Sort.OLDEST),
+                            Integer.MAX_VALUE, 0, 0, DELETE_CANDIDATE_BATCH)) {
+                        deleteCandidates.add(order.id());
+                    }
+                    orderId = deleteCandidates.poll();
+                }
+            }
+        }
+        return orderId;
+    }
+
+    private void think(ThreadLocalRandom random) {
+        if (thinkMillis <= 0) {
+            return;
+        }
+        try {
+            // Exponential pauses, so cashiers don't fall into lockstep
+            long pause = (long) (-thinkMillis * Math.log(1 - random.nextDouble()));
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
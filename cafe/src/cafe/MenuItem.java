@@ -0,0 +1,16 @@
+package cafe;
+
+/**
+ * One row of Menu
+ *
+ * @param id ID_Menu
+ * @param name Nama_Menu
+ * @param category Kategori
+ * @param price Harga in rupiah
+ */
+public record MenuItem(int id, String name, String category, int price) {
+
+    public String displayName() {
+        return name + " - Rp" + price;
+    }
+}
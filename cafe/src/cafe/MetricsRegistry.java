@@ -0,0 +1,329 @@
+package cafe;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide metrics for database operations.
+ * Every operation has a latency histogram, error count, rows read and written
+ * and an in-flight gauge. Operations are published as JMX MXBeans under
+ * {@code cafe:type=DaoOperation,name=<operation>} and the connection pool
+ * under {@code cafe:type=ConnectionPool}; setting -Dcafe.metrics.dumpSeconds
+ * also logs a text table of all operations at that interval.
+ */
+public final class MetricsRegistry {
+
+    private static final Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+
+    private static final MetricsRegistry INSTANCE = create();
+
+    /**
+     * JMX view of one operation; latencies are in milliseconds
+     */
+    public interface OperationMXBean {
+        long getCount();
+
+        long getErrorCount();
+
+        long getRowsRead();
+
+        long getRowsWritten();
+
+        int getInFlight();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP95Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+
+        void reset();
+    }
+
+    /**
+     * JMX view of the connection pool
+     */
+    public interface PoolMXBean {
+        int getActiveCount();
+
+        int getIdleCount();
+
+        int getMaxSize();
+
+        long getStatementCacheHits();
+
+        long getStatementCacheMisses();
+
+        long getStatementCacheEvictions();
+
+        double getStatementCacheHitRate();
+    }
+
+    /**
+     * Counters for one named operation
+     */
+    public static final class Operation implements OperationMXBean {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder rowsWritten = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getRowsRead() {
+            return rowsRead.sum();
+        }
+
+        @Override
+        public long getRowsWritten() {
+            return rowsWritten.sum();
+        }
+
+        @Override
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return LatencyHistogram.toMillis(latency.getMeanNanos());
+        }
+
+        @Override
+        public double getP50Millis() {
+            return LatencyHistogram.toMillis(latency.getValueAtPercentile(50));
+        }
+
+        @Override
+        public double getP95Millis() {
+            return LatencyHistogram.toMillis(latency.getValueAtPercentile(95));
+        }
+
+        @Override
+        public double getP99Millis() {
+            return LatencyHistogram.toMillis(latency.getValueAtPercentile(99));
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return LatencyHistogram.toMillis(latency.getMaxNanos());
+        }
+
+        @Override
+        public void reset() {
+            latency.reset();
+            errors.reset();
+            rowsRead.reset();
+            rowsWritten.reset();
+        }
+
+        /**
+         * Record a completed call that was timed elsewhere
+         */
+        public void record(long nanos, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    /**
+     * One timed call of an operation; close it in a finally block.
+     * Call {@link #failed()} from the error path.
+     */
+    public static final class Span implements AutoCloseable {
+        private final Operation operation;
+        private final long startNanos = System.nanoTime();
+        private boolean failed;
+        private boolean closed;
+
+        private Span(Operation operation) {
+            this.operation = operation;
+            operation.inFlight.incrementAndGet();
+        }
+
+        public void failed() {
+            failed = true;
+        }
+
+        public void rowsRead(long rows) {
+            operation.rowsRead.add(rows);
+        }
+
+        public void rowsWritten(long rows) {
+            operation.rowsWritten.add(rows);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            operation.inFlight.decrementAndGet();
+            operation.record(System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ScheduledExecutorService dumper;
+
+    private MetricsRegistry() {
+    }
+
+    private static MetricsRegistry create() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long dumpSeconds = Long.getLong("cafe.metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            registry.startPeriodicDump(dumpSeconds);
+        }
+        return registry;
+    }
+
+    public static MetricsRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start timing a call of the named operation
+     */
+    public Span start(String operationName) {
+        return new Span(operation(operationName));
+    }
+
+    /**
+     * Get or create (and register with JMX) the named operation
+     */
+    public Operation operation(String operationName) {
+        return operations.computeIfAbsent(operationName, name -> {
+            Operation operation = new Operation(name);
+            register("cafe:type=DaoOperation,name=" + ObjectName.quote(name), operation);
+            return operation;
+        });
+    }
+
+    /**
+     * Publish the pool's gauges over JMX
+     */
+    public void registerPool(ConnectionPool pool) {
+        register("cafe:type=ConnectionPool", new PoolMXBean() {
+            @Override
+            public int getActiveCount() {
+                return pool.getActiveCount();
+            }
+
+            @Override
+            public int getIdleCount() {
+                return pool.getIdleCount();
+            }
+
+            @Override
+            public int getMaxSize() {
+                return pool.getMaxSize();
+            }
+
+            @Override
+            public long getStatementCacheHits() {
+                return pool.getStatementCacheHits();
+            }
+
+            @Override
+            public long getStatementCacheMisses() {
+                return pool.getStatementCacheMisses();
+            }
+
+            @Override
+            public long getStatementCacheEvictions() {
+                return pool.getStatementCacheEvictions();
+            }
+
+            @Override
+            public double getStatementCacheHitRate() {
+                return pool.getStatementCacheHitRate();
+            }
+        });
+    }
+
+    /**
+     * Text table of every operation, sorted by name
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder(String.format("%-28s %8s %6s %8s %8s %4s %9s %9s %9s %9s%n",
+                "Operation", "count", "errors", "read", "written", "busy", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Operation op : new TreeMap<>(operations).values()) {
+            out.append(String.format("%-28s %8d %6d %8d %8d %4d %9.2f %9.2f %9.2f %9.2f%n",
+                    op.getName(), op.getCount(), op.getErrorCount(), op.getRowsRead(), op.getRowsWritten(),
+                    op.getInFlight(), op.getP50Millis(), op.getP95Millis(), op.getP99Millis(), op.getMaxMillis()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Log {@link #dump()} every intervalSeconds on a daemon thread
+     */
+    public synchronized void startPeriodicDump(long intervalSeconds) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cafe-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> logger.info("Database metrics:\n" + dump()),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void register(String objectName, Object mbean) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+            mbeanServer.registerMBean(mbean, name);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Failed to register MBean " + objectName, e);
+        }
+    }
+}
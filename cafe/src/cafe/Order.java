@@ -0,0 +1,16 @@
+package cafe;
+
+/**
+ * One row of the order board: a Pesanan with its details aggregated
+ *
+ * @param id ID_Pesanan
+ * @param customerName Nama_Pemesan
+ * @param tableNumber Nomor_Meja
+ * @param paymentMethod Metode_Pembayaran
+ * @param menuItems menu names of all details, comma separated, with the quantity
+ *                  in front when above one (e.g. "2x Es Teh Manis")
+ * @param total sum of the detail subtotals in rupiah
+ */
+public record Order(int id, String customerName, int tableNumber, String paymentMethod,
+                    String menuItems, int total) {
+}
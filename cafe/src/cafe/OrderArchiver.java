@@ -0,0 +1,96 @@
+package cafe;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background mover of served and voided orders into the history tables.
+ * Every interval it archives batches with {@link CafeDAO#archiveClosedOrders(int, int)}
+ * until fewer than a full batch is left, so Pesanan and Detail_Pesanan only
+ * hold open and recently closed orders. Any number of tills may run one;
+ * the database lock lets one archive at a time.
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>cafe.archive.intervalMinutes - time between runs, 0 to disable (default 10)</li>
+ *   <li>cafe.archive.afterMinutes - how long a closed order stays live (default 60)</li>
+ *   <li>cafe.archive.batchSize - orders moved per transaction (default 5000)</li>
+ * </ul>
+ */
+public class OrderArchiver implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(OrderArchiver.class.getName());
+
+    private final CafeDAO dao;
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final long intervalMillis;
+    private final int afterMinutes;
+    private final int batchSize;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    public OrderArchiver(CafeDAO dao, int intervalMinutes, int afterMinutes, int batchSize) {
+        this.dao = dao;
+        this.intervalMillis = intervalMinutes * 60_000L;
+        this.afterMinutes = afterMinutes;
+        this.batchSize = batchSize;
+        this.thread = new Thread(this::run, "cafe-order-archiver");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Archiver configured from system properties, or null if disabled
+     */
+    public static OrderArchiver fromSystemProperties(CafeDAO dao) {
+        int intervalMinutes = Integer.getInteger("cafe.archive.intervalMinutes", 10);
+        if (intervalMinutes <= 0) {
+            return null;
+        }
+        return new OrderArchiver(dao, intervalMinutes,
+                Integer.getInteger("cafe.archive.afterMinutes", 60),
+                Integer.getInteger("cafe.archive.batchSize", 5000));
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                archiveAll();
+            } catch (RuntimeException e) {
+                // No connection could be borrowed; try again next interval
+                logger.log(Level.WARNING, "Order archiver couldn't reach the database", e);
+            }
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                // Only close() interrupts; the loop checks running
+            }
+        }
+    }
+
+    private void archiveAll() {
+        // Only orders already in the sales rollups are archived
+        reportDAO.updateRollups();
+
+        int total = 0;
+        int archived;
+        do {
+            archived = dao.archiveClosedOrders(afterMinutes, batchSize);
+            total += Math.max(0, archived);
+        } while (running && archived == batchSize);
+
+        if (total > 0) {
+            logger.info("Archived " + total + " closed order(s)");
+        }
+    }
+}
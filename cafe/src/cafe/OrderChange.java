@@ -0,0 +1,30 @@
+package cafe;
+
+/**
+ * One entry of the order change log (Pesanan_Perubahan)
+ *
+ * @param changeId ID_Perubahan, increasing
+ * @param kind what changed
+ * @param orderId ID_Pesanan
+ * @param detailId ID_Detail of the line marked done, 0 for order changes
+ * @param customerName Nama_Pemesan, so filtered boards can tell whether the change is theirs
+ * @param order the order as shown on the board for additions; null otherwise, or if
+ *              it was removed again before the change was read
+ */
+public record OrderChange(long changeId, Kind kind, int orderId, int detailId, String customerName, Order order) {
+
+    public enum Kind {
+        INSERTED,  // 'I'
+        DELETED,   // 'D'
+        LINE_DONE; // 'L'
+
+        static Kind fromCode(String code) {
+            return switch (code) {
+                case "I" -> INSERTED;
+                case "D" -> DELETED;
+                case "L" -> LINE_DONE;
+                default -> throw new IllegalArgumentException("Unknown change kind " + code);
+            };
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package cafe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes order board changes to every running till on this machine.
+ * The first instance to bind the feed port becomes the hub: it alone tails
+ * the Pesanan_Perubahan change log and sends each batch of changes to the
+ * other instances over a loopback socket. The others connect as clients, and
+ * take over as hub if it goes away. Database work is one small query per poll
+ * however many screens are open, and each screen only applies the changes.
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>cafe.changes.port - loopback port of the hub, 0 to disable the feed (default 47474)</li>
+ *   <li>cafe.changes.pollMillis - change log poll interval (default 100)</li>
+ *   <li>cafe.changes.keepMinutes - age after which log entries are purged (default 60)</li>
+ * </ul>
+ */
+public class OrderChangeFeed implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(OrderChangeFeed.class.getName());
+
+    /**
+     * Receives changes on a feed thread
+     */
+    public interface Listener {
+        void ordersChanged(List<OrderChange> changes);
+
+        /**
+         * Changes may have been missed (reconnect, bulk load); reload the board
+         */
+        void resync();
+    }
+
+    // More changes than this in one poll are not sent one by one; clients reload instead
+    private static final int MAX_CHANGES_PER_POLL = 1000;
+    private static final int PURGE_EVERY_POLLS = 1200;
+    private static final long RETRY_MILLIS = 1000;
+
+    private static final byte CHANGES_MESSAGE = 1;
+    private static final byte RESYNC_MESSAGE = 2;
+
+    private final CafeDAO dao;
+    private final Listener listener;
+    private final int port;
+    private final long pollMillis;
+    private final int keepMinutes;
+    private final Thread thread;
+
+    // Hub side: connected clients
+    private final List<DataOutputStream> clients = new CopyOnWriteArrayList<>();
+    private volatile ServerSocket server;
+    private volatile Socket socket;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+
+    public OrderChangeFeed(CafeDAO dao, Listener listener, int port, long pollMillis, int keepMinutes) {
+        this.dao = dao;
+        this.listener = listener;
+        this.port = port;
+        this.pollMillis = pollMillis;
+        this.keepMinutes = keepMinutes;
+        this.thread = new Thread(this::run, "cafe-order-feed");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Feed configured from system properties, or null if disabled
+     */
+    public static OrderChangeFeed fromSystemProperties(CafeDAO dao, Listener listener) {
+        int port = Integer.getInteger("cafe.changes.port", 47474);
+        if (port <= 0) {
+            return null;
+        }
+        return new OrderChangeFeed(dao, listener, port,
+                Long.getLong("cafe.changes.pollMillis", 100),
+                Integer.getInteger("cafe.changes.keepMinutes", 60));
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * True while changes are being received, as hub or client.
+     * While false, callers have to poll for changes themselves.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(server);
+        closeQuietly(socket);
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            ServerSocket bound = bind();
+            if (bound != null) {
+                runHub(bound);
+            } else {
+                runClient();
+            }
+            connected = false;
+            if (running) {
+                sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    private ServerSocket bind() {
+        try {
+            ServerSocket bound = new ServerSocket();
+            try {
+                bound.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                return bound;
+            } catch (IOException e) {
+                bound.close();
+                throw e;
+            }
+        } catch (BindException e) {
+            return null; // Another instance is the hub
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to open order feed port " + port, e);
+            return null;
+        }
+    }
+
+    // Hub: tail the change log and fan out to the local listener and all clients
+    private void runHub(ServerSocket bound) {
+        server = bound;
+        logger.info("Order feed hub listening on port " + port);
+        Thread acceptor = new Thread(() -> acceptClients(bound), "cafe-order-feed-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        try {
+            long lastChangeId = -1;
+            int polls = 0;
+            while (running) {
+                try {
+                    if (lastChangeId < 0) {
+                        lastChangeId = dao.getLatestOrderChangeId();
+                        if (lastChangeId >= 0) {
+                            // Changes made before this point weren't seen by anyone listening
+                            connected = true;
+                            publishResync();
+                        }
+                    } else {
+                        lastChangeId = poll(lastChangeId);
+                        if (++polls % PURGE_EVERY_POLLS == 0) {
+                            dao.purgeOrderChanges(keepMinutes);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // No connection could be borrowed; start over (and resync everyone) once it's back
+                    if (connected) {
+                        logger.log(Level.WARNING, "Order feed lost the database", e);
+                    }
+                    connected = false;
+                    lastChangeId = -1;
+                }
+                sleep(pollMillis);
+            }
+        } finally {
+            closeQuietly(bound);
+            for (DataOutputStream client : clients) {
+                closeQuietly(client);
+            }
+            clients.clear();
+            server = null;
+        }
+    }
+
+    /**
+     * Read and publish one batch of changes
+     *
+     * @return the new last change ID
+     */
+    private long poll(long lastChangeId) {
+        // Under READ COMMITTED the scan waits on uncommitted log rows, so an
+        // earlier change can't be skipped by committing after a later one
+        List<OrderChange> changes = dao.getOrderChanges(lastChangeId, MAX_CHANGES_PER_POLL);
+        if (changes == null || changes.isEmpty()) {
+            return lastChangeId;
+        }
+
+        if (changes.size() >= MAX_CHANGES_PER_POLL || reusesOrderIds(changes)) {
+            long latest = dao.getLatestOrderChangeId();
+            if (latest < 0) {
+                return lastChangeId;
+            }
+            publishResync();
+            return latest;
+        }
+
+        publish(changes);
+        return changes.get(changes.size() - 1).changeId();
+    }
+
+    /**
+     * True if an ID_Pesanan is removed and added again, i.e. the identity was reseeded
+     */
+    private static boolean reusesOrderIds(List<OrderChange> changes) {
+        Set<Integer> removed = new HashSet<>();
+        for (OrderChange change : changes) {
+            if (change.kind() == OrderChange.Kind.DELETED) {
+                removed.add(change.orderId());
+            } else if (change.kind() == OrderChange.Kind.INSERTED && removed.contains(change.orderId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void acceptClients(ServerSocket bound) {
+        while (running && !bound.isClosed()) {
+            try {
+                Socket client = bound.accept();
+                client.setTcpNoDelay(true);
+                clients.add(new DataOutputStream(new BufferedOutputStream(client.getOutputStream())));
+                logger.fine("Order feed client connected; " + clients.size() + " connected");
+            } catch (IOException e) {
+                if (!bound.isClosed()) {
+                    logger.log(Level.WARNING, "Failed to accept order feed client", e);
+                }
+            }
+        }
+    }
+
+    private void publish(List<OrderChange> changes) {
+        listener.ordersChanged(changes);
+        for (DataOutputStream client : clients) {
+            try {
+                writeChanges(client, changes);
+            } catch (IOException e) {
+                dropClient(client);
+            }
+        }
+    }
+
+    private void publishResync() {
+        listener.resync();
+        for (DataOutputStream client : clients) {
+            try {
+                client.writeByte(RESYNC_MESSAGE);
+                client.flush();
+            } catch (IOException e) {
+                dropClient(client);
+            }
+        }
+    }
+
+    private void dropClient(DataOutputStream client) {
+        clients.remove(client);
+        closeQuietly(client);
+        logger.fine("Order feed client disconnected; " + clients.size() + " connected");
+    }
+
+    // Client: receive changes from the hub until it goes away
+    private void runClient() {
+        try (Socket connection = new Socket()) {
+            socket = connection;
+            connection.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), (int) RETRY_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            logger.info("Connected to order feed hub on port " + port);
+            connected = true;
+            // Changes made while this instance wasn't listening are unknown
+            listener.resync();
+
+            while (running) {
+                byte type = in.readByte();
+                if (type == CHANGES_MESSAGE) {
+                    listener.ordersChanged(readChanges(in));
+                } else if (type == RESYNC_MESSAGE) {
+                    listener.resync();
+                } else {
+                    throw new IOException("Unknown order feed message " + type);
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.log(Level.FINE, "Order feed hub unavailable", e);
+            }
+        } finally {
+            socket = null;
+        }
+    }
+
+    private static void writeChanges(DataOutputStream out, List<OrderChange> changes) throws IOException {
+        out.writeByte(CHANGES_MESSAGE);
+        out.writeInt(changes.size());
+        for (OrderChange change : changes) {
+            out.writeLong(change.changeId());
+            out.writeByte(change.kind().ordinal());
+            out.writeInt(change.orderId());
+            out.writeInt(change.detailId());
+            writeString(out, change.customerName());
+            Order order = change.order();
+            out.writeBoolean(order != null);
+            if (order != null) {
+                out.writeInt(order.tableNumber());
+                writeString(out, order.paymentMethod());
+                writeString(out, order.menuItems());
+                out.writeInt(order.total());
+            }
+        }
+        out.flush();
+    }
+
+    private static List<OrderChange> readChanges(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<OrderChange> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long changeId = in.readLong();
+            OrderChange.Kind kind = OrderChange.Kind.values()[in.readByte()];
+            int orderId = in.readInt();
+            int detailId = in.readInt();
+            String customerName = readString(in);
+            Order order = null;
+            if (in.readBoolean()) {
+                order = new Order(orderId, customerName, in.readInt(), readString(in), readString(in), in.readInt());
+            }
+            changes.add(new OrderChange(changeId, kind, orderId, detailId, customerName, order));
+        }
+        return changes;
+    }
+
+    // Length-prefixed UTF-8 (writeUTF caps at 64 KB); null is length -1
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // Only close() interrupts; the loops check running
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Failed to close order feed resource", e);
+        }
+    }
+}
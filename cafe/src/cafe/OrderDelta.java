@@ -0,0 +1,13 @@
+package cafe;
+
+import java.util.List;
+
+/**
+ * Changes to the order board since a watermark
+ *
+ * @param addedOrders orders with ID_Pesanan above the watermark, newest first
+ * @param remainingCount how many orders at or below the watermark still exist;
+ *                       fewer than the caller holds means some were removed
+ */
+public record OrderDelta(List<Order> addedOrders, int remainingCount) {
+}
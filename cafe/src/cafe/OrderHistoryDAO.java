@@ -0,0 +1,409 @@
+package cafe;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Export of orders (archived and live) to an {@link OrderHistoryFile}, and
+ * import of such a file back into the history tables. The export streams a
+ * forward-only result set straight into the file writer, and the import
+ * streams the file through bulk copy, so neither holds more than one file
+ * block in memory however many orders there are.
+ */
+public class OrderHistoryDAO {
+
+    private static final Logger logger = Logger.getLogger(OrderHistoryDAO.class.getName());
+
+    private static final MetricsRegistry metrics = MetricsRegistry.get();
+
+    // Rows per round trip while exporting
+    private static final int EXPORT_FETCH_SIZE = 5000;
+
+    // Rows per bulk copy batch while importing
+    private static final int IMPORT_BATCH_SIZE = 10000;
+
+    // One row per order line (or per order without lines), ordered so each order's rows are adjacent;
+    // %1$s orders table, %2$s details table, %3$s join condition, %4$s sort
+    private static final String EXPORT_QUERY = """
+            SELECT p.ID_Pesanan, p.Tanggal_Pesanan, p.Waktu_Pesanan, p.ID_Pegawai, p.Nomor_Meja,
+                   p.Nama_Pemesan, p.Metode_Pembayaran, p.Status_Pesanan, p.Waktu_Dilayani,
+                   dp.ID_Detail, dp.ID_Menu, m.Nama_Menu, dp.Jumlah, dp.Subtotal, dp.Catatan
+            FROM %1$s p
+            LEFT JOIN %2$s dp ON %3$s
+            LEFT JOIN Menu m ON m.ID_Menu = dp.ID_Menu
+            WHERE p.Tanggal_Pesanan BETWEEN ? AND ?
+            ORDER BY %4$s
+        """;
+
+    // Both follow the clustered index order of their tables, so SQL Server needs no sort
+    private static final String HISTORY_EXPORT_QUERY = String.format(EXPORT_QUERY,
+            "Riwayat_Pesanan", "Riwayat_Detail_Pesanan",
+            "dp.Tanggal_Pesanan = p.Tanggal_Pesanan AND dp.ID_Pesanan = p.ID_Pesanan",
+            "p.Tanggal_Pesanan, p.ID_Pesanan, dp.ID_Detail");
+    private static final String LIVE_EXPORT_QUERY = String.format(EXPORT_QUERY,
+            "Pesanan", "Detail_Pesanan", "dp.ID_Pesanan = p.ID_Pesanan", "p.ID_Pesanan, dp.ID_Detail");
+
+    /**
+     * Write every order placed between two days, inclusive, to a file.
+     * The file is written next to the target and moved into place when complete.
+     *
+     * @return orders exported, or -1 on failure
+     */
+    public long exportOrders(Path file, LocalDate from, LocalDate to) {
+        MetricsRegistry.Span span = metrics.start("exportOrders");
+        Path temp = null;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Path parent = file.toAbsolutePath().getParent();
+            temp = Files.createTempFile(parent, "orders", ".tmp");
+
+            long exported = 0;
+            try (OrderHistoryFile.Writer writer = new OrderHistoryFile.Writer(temp)) {
+                exported += exportQuery(conn, HISTORY_EXPORT_QUERY, from, to, writer);
+                exported += exportQuery(conn, LIVE_EXPORT_QUERY, from, to, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            span.rowsRead(exported);
+            logger.info("Exported " + exported + " order(s) to " + file);
+            return exported;
+
+        } catch (SQLException | IOException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to export orders to " + file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Failed to delete partial export " + temp, ex);
+                }
+            }
+            return -1;
+        } finally {
+            span.close();
+        }
+    }
+
+    private long exportQuery(Connection conn, String query, LocalDate from, LocalDate to,
+                             OrderHistoryFile.Writer writer) throws SQLException, IOException {
+        long exported = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DatabaseConnection.configureStreaming(stmt, EXPORT_FETCH_SIZE);
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                OrderHistoryFile.OrderRecord order = null;
+                List<OrderHistoryFile.LineRecord> lines = new ArrayList<>();
+                while (rs.next()) {
+                    int orderId = rs.getInt("ID_Pesanan");
+                    if (order == null || order.id() != orderId) {
+                        if (order != null) {
+                            writer.write(order);
+                            exported++;
+                        }
+                        lines = new ArrayList<>();
+                        String status = rs.getString("Status_Pesanan");
+                        order = new OrderHistoryFile.OrderRecord(orderId,
+                            rs.getDate("Tanggal_Pesanan").toLocalDate(),
+                            rs.getObject("Waktu_Pesanan", LocalDateTime.class),
+                            rs.getInt("ID_Pegawai"), rs.getInt("Nomor_Meja"),
+                            rs.getString("Nama_Pemesan"), rs.getString("Metode_Pembayaran"),
+                            status.charAt(0), rs.getObject("Waktu_Dilayani", LocalDateTime.class), lines);
+                    }
+                    int detailId = rs.getInt("ID_Detail");
+                    if (!rs.wasNull()) {
+                        lines.add(new OrderHistoryFile.LineRecord(detailId, rs.getInt("ID_Menu"),
+                            rs.getString("Nama_Menu"), rs.getInt("Jumlah"), rs.getInt("Subtotal"),
+                            rs.getString("Catatan")));
+                    }
+                }
+                if (order != null) {
+                    writer.write(order);
+                    exported++;
+                }
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * Load an exported file into Riwayat_Pesanan and Riwayat_Detail_Pesanan
+     * in one transaction. The file is bulk copied into staging tables, then
+     * orders not already in Pesanan or the history are added. Imported orders
+     * are not added to the sales rollups again; they were counted when placed.
+     *
+     * @return orders added, or -1 on failure
+     */
+    public long importOrders(Path file) {
+        String createStaging = """
+            CREATE TABLE #Impor_Pesanan (
+                ID_Pesanan INT NOT NULL, ID_Pegawai INT NULL, Nomor_Meja INT NULL, Nama_Pemesan VARCHAR(40) NOT NULL,
+                Tanggal_Pesanan DATE NOT NULL, Metode_Pembayaran VARCHAR(20) NOT NULL, Status_Pesanan CHAR(1) NOT NULL,
+                Waktu_Dilayani DATETIME2 NULL, Waktu_Pesanan DATETIME2(0) NULL);
+            CREATE TABLE #Impor_Detail (
+                ID_Detail INT NOT NULL, ID_Pesanan INT NOT NULL, Tanggal_Pesanan DATE NOT NULL, ID_Menu INT NULL,
+                Catatan VARCHAR(100) NULL, Jumlah INT NOT NULL, Subtotal INT NOT NULL);
+        """;
+
+        String mergeStaging = """
+            SET NOCOUNT ON;
+            SELECT DISTINCT i.ID_Pesanan, i.Tanggal_Pesanan
+            INTO #Impor_Baru
+            FROM #Impor_Pesanan i
+            WHERE NOT EXISTS (SELECT 1 FROM Riwayat_Pesanan r
+                              WHERE r.Tanggal_Pesanan = i.Tanggal_Pesanan AND r.ID_Pesanan = i.ID_Pesanan)
+              AND NOT EXISTS (SELECT 1 FROM Pesanan p WHERE p.ID_Pesanan = i.ID_Pesanan);
+
+            DECLARE @month DATE;
+            WHILE 1 = 1
+            BEGIN
+                SET @month = NULL;
+                SELECT TOP 1 @month = m.Bulan
+                FROM (SELECT DISTINCT DATEFROMPARTS(YEAR(Tanggal_Pesanan), MONTH(Tanggal_Pesanan), 1) AS Bulan FROM #Impor_Baru) m
+                WHERE NOT EXISTS (SELECT 1 FROM sys.partition_range_values v
+                                  JOIN sys.partition_functions f ON f.function_id = v.function_id
+                                  WHERE f.name = 'PF_Riwayat_Bulan' AND CAST(v.value AS DATE) = m.Bulan);
+                IF @month IS NULL BREAK;
+                ALTER PARTITION SCHEME PS_Riwayat_Bulan NEXT USED [PRIMARY];
+                ALTER PARTITION FUNCTION PF_Riwayat_Bulan() SPLIT RANGE (@month);
+            END;
+
+            INSERT INTO Riwayat_Pesanan (ID_Pesanan, ID_Pegawai, Nomor_Meja, Nama_Pemesan, Tanggal_Pesanan,
+                                         Metode_Pembayaran, Status_Pesanan, Waktu_Dilayani, Waktu_Pesanan)
+            SELECT i.ID_Pesanan, i.ID_Pegawai, i.Nomor_Meja, i.Nama_Pemesan, i.Tanggal_Pesanan,
+                   i.Metode_Pembayaran, i.Status_Pesanan, i.Waktu_Dilayani, i.Waktu_Pesanan
+            FROM #Impor_Pesanan i
+            JOIN #Impor_Baru b ON b.ID_Pesanan = i.ID_Pesanan AND b.Tanggal_Pesanan = i.Tanggal_Pesanan;
+
+            INSERT INTO Riwayat_Detail_Pesanan (ID_Detail, ID_Pesanan, Tanggal_Pesanan, ID_Menu, Catatan, Jumlah, Subtotal)
+            SELECT d.ID_Detail, d.ID_Pesanan, d.Tanggal_Pesanan, d.ID_Menu, d.Catatan, d.Jumlah, d.Subtotal
+            FROM #Impor_Detail d
+            JOIN #Impor_Baru b ON b.ID_Pesanan = d.ID_Pesanan AND b.Tanggal_Pesanan = d.Tanggal_Pesanan;
+
+            SELECT COUNT(*) FROM #Impor_Baru;
+            DROP TABLE #Impor_Baru;
+        """;
+
+        MetricsRegistry.Span span = metrics.start("importOrders");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(createStaging);
+            }
+
+            // Two passes over the file, one per staging table, instead of buffering either side
+            SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+            options.setBatchSize(IMPORT_BATCH_SIZE);
+            options.setKeepNulls(true);
+            try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(conn.unwrap(SQLServerConnection.class))) {
+                bulkCopy.setBulkCopyOptions(options);
+                try (OrderBulkData orders = new OrderBulkData(file)) {
+                    bulkCopy.setDestinationTableName("#Impor_Pesanan");
+                    bulkCopy.writeToServer(orders);
+                }
+                try (LineBulkData lines = new LineBulkData(file)) {
+                    bulkCopy.setDestinationTableName("#Impor_Detail");
+                    bulkCopy.writeToServer(lines);
+                }
+            }
+
+            long imported = 0;
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(mergeStaging)) {
+                    if (rs.next()) {
+                        imported = rs.getLong(1);
+                    }
+                }
+                stmt.execute("DROP TABLE #Impor_Detail; DROP TABLE #Impor_Pesanan;");
+            }
+
+            conn.commit();
+            span.rowsWritten(imported);
+            logger.info("Imported " + imported + " order(s) from " + file);
+            return imported;
+
+        } catch (SQLException | IOException | UncheckedIOException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to import orders from " + file, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    // Staging tables outlive the transaction on a pooled connection
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("DROP TABLE IF EXISTS #Impor_Detail; DROP TABLE IF EXISTS #Impor_Pesanan;");
+                    }
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
+            }
+            span.close();
+        }
+    }
+
+    /**
+     * Bulk copy source reading one staging table's rows from the file as they are sent
+     */
+    private abstract static class FileBulkData implements ISQLServerBulkData, AutoCloseable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;
+        private final int[] types;
+        private final transient OrderHistoryFile.Reader reader;
+
+        FileBulkData(Path file, String[] names, int[] types) throws IOException {
+            this.names = names;
+            this.types = types;
+            this.reader = new OrderHistoryFile.Reader(file);
+        }
+
+        OrderHistoryFile.OrderRecord nextOrder() throws SQLException {
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                throw new SQLException("Failed to read order history file", e);
+            }
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new java.util.TreeSet<>();
+            for (int i = 1; i <= names.length; i++) {
+                ordinals.add(i);
+            }
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return names[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return types[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return switch (types[column - 1]) {
+                case Types.VARCHAR, Types.CHAR -> 100;
+                case Types.TIMESTAMP -> 27;
+                case Types.DATE -> 10;
+                default -> 10;
+            };
+        }
+
+        @Override
+        public int getScale(int column) {
+            return types[column - 1] == Types.TIMESTAMP ? 7 : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        static Integer nullIfZero(int value) {
+            return value == 0 ? null : value;
+        }
+
+        static Timestamp timestamp(LocalDateTime time) {
+            return time == null ? null : Timestamp.valueOf(time);
+        }
+    }
+
+    // Columns in #Impor_Pesanan order
+    private static final class OrderBulkData extends FileBulkData {
+        private static final long serialVersionUID = 1L;
+        private transient Object[] row;
+
+        OrderBulkData(Path file) throws IOException {
+            super(file,
+                new String[] {"ID_Pesanan", "ID_Pegawai", "Nomor_Meja", "Nama_Pemesan", "Tanggal_Pesanan",
+                    "Metode_Pembayaran", "Status_Pesanan", "Waktu_Dilayani", "Waktu_Pesanan"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.DATE,
+                    Types.VARCHAR, Types.CHAR, Types.TIMESTAMP, Types.TIMESTAMP});
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            OrderHistoryFile.OrderRecord order = nextOrder();
+            if (order == null) {
+                return false;
+            }
+            row = new Object[] {order.id(), nullIfZero(order.employeeId()), nullIfZero(order.tableNumber()),
+                order.customerName(), Date.valueOf(order.date()), order.paymentMethod(),
+                String.valueOf(order.status()), timestamp(order.servedAt()), timestamp(order.placedAt())};
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            return row;
+        }
+    }
+
+    // Columns in #Impor_Detail order; walks the lines of each order in turn
+    private static final class LineBulkData extends FileBulkData {
+        private static final long serialVersionUID = 1L;
+        private transient OrderHistoryFile.OrderRecord order;
+        private transient int lineIndex;
+        private transient Object[] row;
+
+        LineBulkData(Path file) throws IOException {
+            super(file,
+                new String[] {"ID_Detail", "ID_Pesanan", "Tanggal_Pesanan", "ID_Menu", "Catatan", "Jumlah", "Subtotal"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.DATE, Types.INTEGER, Types.VARCHAR,
+                    Types.INTEGER, Types.INTEGER});
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            while (order == null || lineIndex == order.lines().size()) {
+                order = nextOrder();
+                lineIndex = 0;
+                if (order == null) {
+                    return false;
+                }
+            }
+            OrderHistoryFile.LineRecord line = order.lines().get(lineIndex++);
+            row = new Object[] {line.detailId(), order.id(), Date.valueOf(order.date()), nullIfZero(line.menuId()),
+                line.notes(), line.quantity(), line.subtotal()};
+            return true;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            return row;
+        }
+    }
+}
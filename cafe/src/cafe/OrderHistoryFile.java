@@ -0,0 +1,446 @@
+package cafe;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar file of orders with their lines, for taking history out of the
+ * database and loading it back. The file is a sequence of blocks of up to
+ * {@link #BLOCK_ORDERS} orders; inside a block every column is stored
+ * contiguously, IDs and dates as varint deltas, so a block compresses well
+ * and is read or written in one channel operation. Menu names and payment
+ * methods are dictionary encoded: a block carries only the entries that first
+ * appear in it. Writer and reader hold one block at a time, so memory use does
+ * not depend on the number of orders.
+ *
+ * Layout: magic, then per block {int length, varint orders, varint lines,
+ * new menu names, new payment methods, then each column as varint length +
+ * bytes}, then an int 0. Times are kept to the second.
+ */
+public final class OrderHistoryFile {
+
+    private static final int MAGIC = 0xCAFE0002;
+
+    // Orders per block; a block is typically well under a megabyte
+    static final int BLOCK_ORDERS = 4096;
+
+    // Column order within a block
+    private static final int ORDER_ID = 0, ORDER_DATE = 1, PLACED_AT = 2, EMPLOYEE = 3, TABLE = 4,
+            CUSTOMER = 5, PAYMENT = 6, STATUS = 7, SERVED_AT = 8, LINE_COUNT = 9,
+            DETAIL_ID = 10, MENU_ID = 11, MENU_NAME = 12, QUANTITY = 13, SUBTOTAL = 14, NOTES = 15;
+    private static final int COLUMN_COUNT = 16;
+
+    private OrderHistoryFile() {
+    }
+
+    /**
+     * One order as stored in the file
+     *
+     * @param employeeId ID_Pegawai, 0 if none
+     * @param tableNumber Nomor_Meja, 0 if none
+     * @param placedAt Waktu_Pesanan, may be null for old archived orders
+     * @param status Status_Pesanan
+     * @param servedAt Waktu_Dilayani, null while open
+     */
+    public record OrderRecord(int id, LocalDate date, LocalDateTime placedAt, int employeeId, int tableNumber,
+                              String customerName, String paymentMethod, char status, LocalDateTime servedAt,
+                              List<LineRecord> lines) {
+    }
+
+    /**
+     * One order line as stored in the file
+     *
+     * @param menuId ID_Menu, 0 if none
+     * @param menuName Nama_Menu at export time, null if the menu item is gone
+     * @param notes Catatan, may be null
+     */
+    public record LineRecord(int detailId, int menuId, String menuName, int quantity, int subtotal, String notes) {
+    }
+
+    /**
+     * Appends orders block by block; close() writes the last block and the end marker
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final Map<String, Integer> menuNames = new HashMap<>();
+        private final Map<String, Integer> paymentMethods = new HashMap<>();
+        private final List<String> newMenuNames = new ArrayList<>();
+        private final List<String> newPaymentMethods = new ArrayList<>();
+        private final ColumnBuffer[] columns = new ColumnBuffer[COLUMN_COUNT];
+        private final ColumnBuffer header = new ColumnBuffer();
+
+        private int orderCount;
+        private int lineCount;
+        private int lastOrderId;
+        private long lastDate;
+        private int lastDetailId;
+
+        public Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columns[i] = new ColumnBuffer();
+            }
+            ByteBuffer magic = ByteBuffer.allocate(4).putInt(MAGIC).flip();
+            writeFully(magic);
+        }
+
+        public void write(OrderRecord order) throws IOException {
+            long date = order.date().toEpochDay();
+            long dayStart = date * 86400;
+            columns[ORDER_ID].putSigned(order.id() - lastOrderId);
+            columns[ORDER_DATE].putSigned(date - lastDate);
+            columns[PLACED_AT].putNullableSigned(order.placedAt() == null ? null : seconds(order.placedAt()) - dayStart);
+            columns[EMPLOYEE].putUnsigned(order.employeeId());
+            columns[TABLE].putUnsigned(order.tableNumber());
+            columns[CUSTOMER].putString(order.customerName());
+            columns[PAYMENT].putUnsigned(dictionaryId(paymentMethods, newPaymentMethods, order.paymentMethod()));
+            columns[STATUS].putUnsigned(order.status());
+            long servedFrom = order.placedAt() == null ? dayStart : seconds(order.placedAt());
+            columns[SERVED_AT].putNullableSigned(order.servedAt() == null ? null : seconds(order.servedAt()) - servedFrom);
+            columns[LINE_COUNT].putUnsigned(order.lines().size());
+            lastOrderId = order.id();
+            lastDate = date;
+
+            for (LineRecord line : order.lines()) {
+                columns[DETAIL_ID].putSigned(line.detailId() - lastDetailId);
+                columns[MENU_ID].putUnsigned(line.menuId());
+                // 0 is no name; dictionary entries start at 1
+                columns[MENU_NAME].putUnsigned(line.menuName() == null ? 0
+                        : dictionaryId(menuNames, newMenuNames, line.menuName()) + 1);
+                columns[QUANTITY].putUnsigned(line.quantity());
+                columns[SUBTOTAL].putUnsigned(line.subtotal());
+                columns[NOTES].putNullableString(line.notes());
+                lastDetailId = line.detailId();
+                lineCount++;
+            }
+
+            if (++orderCount == BLOCK_ORDERS) {
+                writeBlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (orderCount > 0) {
+                    writeBlock();
+                }
+                writeFully(ByteBuffer.allocate(4).putInt(0).flip());
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            header.clear();
+            header.putUnsigned(orderCount);
+            header.putUnsigned(lineCount);
+            header.putUnsigned(newMenuNames.size());
+            for (String name : newMenuNames) {
+                header.putString(name);
+            }
+            header.putUnsigned(newPaymentMethods.size());
+            for (String method : newPaymentMethods) {
+                header.putString(method);
+            }
+            for (ColumnBuffer column : columns) {
+                header.putUnsigned(column.size());
+            }
+
+            // Gathering write: length, header, then every column straight from its buffer
+            ByteBuffer[] parts = new ByteBuffer[COLUMN_COUNT + 2];
+            parts[1] = header.flipped();
+            int length = parts[1].remaining();
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                parts[i + 2] = columns[i].flipped();
+                length += parts[i + 2].remaining();
+            }
+            parts[0] = ByteBuffer.allocate(4).putInt(length).flip();
+            long remaining = length + 4L;
+            while (remaining > 0) {
+                remaining -= channel.write(parts);
+            }
+
+            for (ColumnBuffer column : columns) {
+                column.clear();
+            }
+            newMenuNames.clear();
+            newPaymentMethods.clear();
+            orderCount = 0;
+            lineCount = 0;
+            lastOrderId = 0;
+            lastDate = 0;
+            lastDetailId = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private static int dictionaryId(Map<String, Integer> dictionary, List<String> added, String value) {
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = dictionary.size();
+                dictionary.put(value, id);
+                added.add(value);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Reads orders back in file order; one block is decoded at a time
+     */
+    public static final class Reader implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final List<String> menuNames = new ArrayList<>();
+        private final List<String> paymentMethods = new ArrayList<>();
+        private final ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+        private final ByteBuffer length = ByteBuffer.allocate(4);
+        private ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+
+        private int ordersLeft;
+        private int lastOrderId;
+        private long lastDate;
+        private int lastDetailId;
+        private boolean finished;
+
+        public Reader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            readFully(length.clear());
+            if (length.flip().getInt() != MAGIC) {
+                channel.close();
+                throw new IOException("Not an order history file: " + file);
+            }
+        }
+
+        /**
+         * @return the next order, or null after the last one
+         */
+        public OrderRecord next() throws IOException {
+            if (ordersLeft == 0 && !readBlock()) {
+                return null;
+            }
+            ordersLeft--;
+
+            int id = lastOrderId + (int) getSigned(columns[ORDER_ID]);
+            long date = lastDate + getSigned(columns[ORDER_DATE]);
+            long dayStart = date * 86400;
+            Long placedOffset = getNullableSigned(columns[PLACED_AT]);
+            LocalDateTime placedAt = placedOffset == null ? null : dateTime(dayStart + placedOffset);
+            int employeeId = (int) getUnsigned(columns[EMPLOYEE]);
+            int tableNumber = (int) getUnsigned(columns[TABLE]);
+            String customerName = getString(columns[CUSTOMER]);
+            String paymentMethod = paymentMethods.get((int) getUnsigned(columns[PAYMENT]));
+            char status = (char) getUnsigned(columns[STATUS]);
+            Long servedOffset = getNullableSigned(columns[SERVED_AT]);
+            long servedFrom = placedOffset == null ? dayStart : dayStart + placedOffset;
+            LocalDateTime servedAt = servedOffset == null ? null : dateTime(servedFrom + servedOffset);
+            int lines = (int) getUnsigned(columns[LINE_COUNT]);
+            lastOrderId = id;
+            lastDate = date;
+
+            List<LineRecord> lineRecords = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                int detailId = lastDetailId + (int) getSigned(columns[DETAIL_ID]);
+                int menuId = (int) getUnsigned(columns[MENU_ID]);
+                int menuName = (int) getUnsigned(columns[MENU_NAME]);
+                int quantity = (int) getUnsigned(columns[QUANTITY]);
+                int subtotal = (int) getUnsigned(columns[SUBTOTAL]);
+                String notes = getNullableString(columns[NOTES]);
+                lineRecords.add(new LineRecord(detailId, menuId, menuName == 0 ? null : menuNames.get(menuName - 1),
+                        quantity, subtotal, notes));
+                lastDetailId = detailId;
+            }
+
+            return new OrderRecord(id, LocalDate.ofEpochDay(date), placedAt, employeeId, tableNumber,
+                    customerName, paymentMethod, status, servedAt, lineRecords);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private boolean readBlock() throws IOException {
+            if (finished) {
+                return false;
+            }
+            readFully(length.clear());
+            int blockLength = length.flip().getInt();
+            if (blockLength == 0) {
+                finished = true;
+                return false;
+            }
+            if (block.capacity() < blockLength) {
+                block = ByteBuffer.allocate(blockLength);
+            }
+            block.clear().limit(blockLength);
+            readFully(block);
+            block.flip();
+
+            ordersLeft = (int) getUnsigned(block);
+            getUnsigned(block); // line count; lines are found through each order's count
+            for (long i = getUnsigned(block); i > 0; i--) {
+                menuNames.add(getString(block));
+            }
+            for (long i = getUnsigned(block); i > 0; i--) {
+                paymentMethods.add(getString(block));
+            }
+            int[] sizes = new int[COLUMN_COUNT];
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                sizes[i] = (int) getUnsigned(block);
+            }
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columns[i] = block.slice(block.position(), sizes[i]);
+                block.position(block.position() + sizes[i]);
+            }
+
+            lastOrderId = 0;
+            lastDate = 0;
+            lastDetailId = 0;
+            return ordersLeft > 0 || readBlock();
+        }
+
+        private void readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Order history file ends in the middle of a block");
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable write buffer with the varint and string encodings used by the columns
+     */
+    private static final class ColumnBuffer {
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        void clear() {
+            buffer.clear();
+        }
+
+        int size() {
+            return buffer.position();
+        }
+
+        // A read-only view of the written bytes; the buffer itself stays in write mode
+        ByteBuffer flipped() {
+            return buffer.asReadOnlyBuffer().flip();
+        }
+
+        void putUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // Zigzag, so small negative deltas stay small
+        void putSigned(long value) {
+            putUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        // 0 is null, anything else is the zigzag value plus one
+        void putNullableSigned(Long value) {
+            putUnsigned(value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putUnsigned(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        // 0 is null, anything else is the UTF-8 length plus one
+        void putNullableString(String value) {
+            if (value == null) {
+                putUnsigned(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putUnsigned(bytes.length + 1L);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                grown.put(buffer.flip());
+                buffer = grown;
+            }
+        }
+    }
+
+    private static long getUnsigned(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long getSigned(ByteBuffer buffer) {
+        long zigzag = getUnsigned(buffer);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static Long getNullableSigned(ByteBuffer buffer) {
+        long stored = getUnsigned(buffer);
+        if (stored == 0) {
+            return null;
+        }
+        long zigzag = stored - 1;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        return readUtf8(buffer, (int) getUnsigned(buffer));
+    }
+
+    private static String getNullableString(ByteBuffer buffer) {
+        int stored = (int) getUnsigned(buffer);
+        return stored == 0 ? null : readUtf8(buffer, stored - 1);
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime dateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,232 @@
+package cafe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of queued orders.
+ * An order is forced to disk before the cashier is told it was accepted, and
+ * a commit record is appended once it is in the database. On startup every
+ * order without a commit record is handed back for replay. The file is
+ * truncated whenever nothing is outstanding, so it stays small.
+ *
+ * Record layout: type byte, payload length, payload, CRC32 of type and payload.
+ * A torn record at the end (crash mid-write) is ignored.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(OrderJournal.class.getName());
+
+    private static final byte ORDER_RECORD = 1;
+    private static final byte COMMIT_RECORD = 2;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<UUID, QueuedOrder> outstanding = new LinkedHashMap<>();
+
+    /**
+     * Open (or create) the journal and load the orders it still holds
+     */
+    public OrderJournal(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * The oldest orders journaled but not yet committed, at most limit of them
+     */
+    public synchronized List<QueuedOrder> getOutstanding(int limit) {
+        List<QueuedOrder> oldest = new ArrayList<>(Math.min(limit, outstanding.size()));
+        for (QueuedOrder order : outstanding.values()) {
+            if (oldest.size() == limit) {
+                break;
+            }
+            oldest.add(order);
+        }
+        return oldest;
+    }
+
+    public synchronized int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    /**
+     * Durably record an order; returns once it is on disk
+     */
+    public synchronized void append(QueuedOrder order) throws IOException {
+        write(ORDER_RECORD, encode(order));
+        outstanding.put(order.clientKey(), order);
+    }
+
+    /**
+     * Record that these orders are in the database
+     */
+    public synchronized void markCommitted(Collection<QueuedOrder> orders) throws IOException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        for (QueuedOrder order : orders) {
+            outstanding.remove(order.clientKey());
+        }
+        if (outstanding.isEmpty()) {
+            // Nothing left to replay: start over instead of appending a commit record
+            channel.truncate(0);
+            channel.force(true);
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(orders.size());
+        for (QueuedOrder order : orders) {
+            out.writeLong(order.clientKey().getMostSignificantBits());
+            out.writeLong(order.clientKey().getLeastSignificantBits());
+        }
+        write(COMMIT_RECORD, bytes.toByteArray());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(1 + 4 + payload.length + 4);
+        record.put(type).putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        record.flip();
+
+        long position = channel.size();
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        channel.force(false);
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+
+        ByteBuffer contents = ByteBuffer.allocate((int) size);
+        while (contents.hasRemaining() && channel.read(contents, contents.position()) >= 0) {
+            // Read the whole file
+        }
+        contents.flip();
+
+        long validLength = 0;
+        while (contents.remaining() >= 1 + 4) {
+            int start = contents.position();
+            byte type = contents.get();
+            int length = contents.getInt();
+            if (length < 0 || contents.remaining() < length + 4) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            contents.get(payload);
+            int storedCrc = contents.getInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(payload);
+            if ((int) crc.getValue() != storedCrc) {
+                contents.position(start);
+                break;
+            }
+
+            apply(type, payload);
+            validLength = contents.position();
+        }
+
+        if (validLength < size) {
+            logger.warning("Ignoring " + (size - validLength) + " bytes of incomplete journal data in " + file);
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        if (!outstanding.isEmpty()) {
+            logger.info("Journal " + file + " holds " + outstanding.size() + " order(s) to replay");
+        }
+    }
+
+    private void apply(byte type, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (type == ORDER_RECORD) {
+            QueuedOrder order = decode(in);
+            outstanding.put(order.clientKey(), order);
+        } else if (type == COMMIT_RECORD) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                outstanding.remove(new UUID(in.readLong(), in.readLong()));
+            }
+        } else {
+            throw new IOException("Unknown journal record type " + type + " in " + file);
+        }
+    }
+
+    private static byte[] encode(QueuedOrder order) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(order.clientKey().getMostSignificantBits());
+        out.writeLong(order.clientKey().getLeastSignificantBits());
+        out.writeUTF(order.customerName());
+        out.writeInt(order.employeeId());
+        out.writeInt(order.tableNumber());
+        out.writeUTF(order.notes());
+        out.writeUTF(order.paymentMethod());
+        out.writeLong(order.acceptedAtMillis());
+        out.writeInt(order.lines().size());
+        for (OrderLine line : order.lines()) {
+            out.writeInt(line.menuId());
+            out.writeInt(line.price());
+            out.writeInt(line.quantity());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static QueuedOrder decode(DataInputStream in) throws IOException {
+        try {
+            UUID clientKey = new UUID(in.readLong(), in.readLong());
+            String customerName = in.readUTF();
+            int employeeId = in.readInt();
+            int tableNumber = in.readInt();
+            String notes = in.readUTF();
+            String paymentMethod = in.readUTF();
+            long acceptedAtMillis = in.readLong();
+            int lineCount = in.readInt();
+            List<OrderLine> lines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                lines.add(new OrderLine(in.readInt(), in.readInt(), in.readInt()));
+            }
+            return new QueuedOrder(clientKey, customerName, employeeId, tableNumber, notes, paymentMethod,
+                    List.copyOf(lines), acceptedAtMillis);
+        } catch (EOFException e) {
+            throw new IOException("Truncated order record", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One menu item of an order being placed, with its quantity
+ *
+ * @param menuId ID_Menu
+ * @param price unit price charged for the item
+ * @param quantity units ordered; Subtotal is quantity * price
+ */
+public record OrderLine(int menuId, int price, int quantity) {
+
+    public OrderLine {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1: " + quantity);
+        }
+    }
+
+    public static OrderLine of(MenuItem item) {
+        return of(item, 1);
+    }
+
+    public static OrderLine of(MenuItem item, int quantity) {
+        return new OrderLine(item.id(), item.price(), quantity);
+    }
+
+    public int subtotal() {
+        return quantity * price;
+    }
+
+    /**
+     * Merge lines for the same menu item into one, summing quantities.
+     * Lines keep the order in which each menu item first appears.
+     */
+    public static List<OrderLine> aggregate(List<OrderLine> lines) {
+        Map<Integer, OrderLine> byMenu = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            byMenu.merge(line.menuId(), line,
+                (existing, added) -> new OrderLine(existing.menuId(), existing.price(), existing.quantity() + added.quantity()));
+        }
+        return new ArrayList<>(byMenu.values());
+    }
+}
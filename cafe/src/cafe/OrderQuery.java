@@ -0,0 +1,35 @@
+package cafe;
+
+/**
+ * Sort order and filter for the order board, pushed down to SQL
+ *
+ * @param sort row order
+ * @param customerFilter customer name prefix to match, or null for all orders
+ */
+public record OrderQuery(Sort sort, String customerFilter) {
+
+    public enum Sort {
+        NEWEST,   // ID_Pesanan DESC
+        OLDEST,   // ID_Pesanan ASC
+        CUSTOMER, // Nama_Pemesan, then newest
+        TABLE     // Nomor_Meja, then newest
+    }
+
+    public static final OrderQuery DEFAULT = new OrderQuery(Sort.NEWEST, null);
+
+    public OrderQuery withSort(Sort newSort) {
+        return new OrderQuery(newSort, customerFilter);
+    }
+
+    public OrderQuery withCustomerFilter(String filter) {
+        return new OrderQuery(sort, filter == null || filter.isBlank() ? null : filter.trim());
+    }
+
+    /**
+     * Whether an order by this customer passes the filter, case-insensitively like the SQL LIKE
+     */
+    public boolean matches(String customerName) {
+        return customerFilter == null
+            || (customerName != null && customerName.regionMatches(true, 0, customerFilter, 0, customerFilter.length()));
+    }
+}
@@ -0,0 +1,527 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Paged, virtualized table model for the order board.
+ * Only the row count is known up front; pages of rows are fetched lazily as
+ * they are painted and kept in a bounded LRU, so opening the board costs the
+ * same no matter how many orders exist. Sort and filter are done in SQL.
+ * New and removed orders are spliced into the cached pages (or shift them)
+ * and announced as single-row events, so a change never blanks the rows on
+ * screen; where the position can't be worked out here, the cached rows stay
+ * visible as stale until their refetch lands.
+ * All methods must be called on the Event Dispatch Thread.
+ */
+@SuppressWarnings("serial") // Swing models are never serialized
+public class OrderTableModel extends AbstractTableModel {
+
+    private static final Logger logger = Logger.getLogger(OrderTableModel.class.getName());
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+
+    private static final String[] COLUMN_NAMES = {
+        "Pemesan", "Meja", "Menu Items", "Pembayaran", "Total", "ID"
+    };
+
+    // ID_Pesanan is a model column so rows can be acted on by key; the view hides it
+    public static final int ORDER_ID_COLUMN = 5;
+
+    private final AsyncCafeDAO asyncDAO;
+
+    private OrderQuery query = OrderQuery.DEFAULT;
+    private int rowCount;
+    private int watermark;
+    // Highest ID_Pesanan when rowCount was last read from the database; orders up to it are in that count
+    private int countedUpTo;
+
+    private static final Comparator<Order> NEWEST_FIRST = Comparator.comparingInt(Order::id).reversed();
+
+    /**
+     * Rows fetched for one page and the table row they start at now.
+     * Inserts and deletes move firstRow, or the rows inside, instead of
+     * dropping the page; a stale page is shown until its refetch lands.
+     */
+    private static final class Page {
+        final int number;
+        int firstRow;
+        final List<Order> rows;
+        boolean stale;
+
+        Page(int number, int firstRow, List<Order> rows) {
+            this.number = number;
+            this.firstRow = firstRow;
+            this.rows = rows;
+        }
+
+        boolean covers(int rowIndex) {
+            return rowIndex >= firstRow && rowIndex < firstRow + rows.size();
+        }
+    }
+
+    // Keyed by the page number they were fetched as
+    private final Map<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> loadingPages = new HashSet<>();
+    // Bumped whenever row positions change, so page loads already running are kept only as stale
+    private int generation;
+    // Orders above countedUpTo that the change feed added to rowCount since then
+    private final Set<Integer> addedSinceCount = new HashSet<>();
+    // Orders taken off rowCount (by the feed or removeOrder) since then, so a repeat or late change is ignored
+    private final Set<Integer> removedSinceCount = new HashSet<>();
+
+    public OrderTableModel(AsyncCafeDAO asyncDAO) {
+        this.asyncDAO = asyncDAO;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Order order = getRow(rowIndex);
+        if (order == null) {
+            return columnIndex == 0 ? "Memuat..." : columnIndex == ORDER_ID_COLUMN ? -1 : "";
+        }
+        return switch (columnIndex) {
+            case 0 -> order.customerName();
+            case 1 -> "Meja " + order.tableNumber();
+            case 2 -> order.menuItems();
+            case 3 -> order.paymentMethod();
+            case 4 -> "Rp " + order.total();
+            default -> order.id();
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Make table read-only
+    }
+
+    /**
+     * @return the ID_Pesanan of a row, or -1 if its page is not loaded yet
+     */
+    public int getOrderId(int rowIndex) {
+        Order order = getRow(rowIndex);
+        return order != null ? order.id() : -1;
+    }
+
+    /**
+     * @return the order shown in a row, or null if its page is not loaded yet
+     */
+    public Order getOrder(int rowIndex) {
+        return getRow(rowIndex);
+    }
+
+    /**
+     * Highest ID_Pesanan the model has seen
+     */
+    public int getWatermark() {
+        return watermark;
+    }
+
+    public OrderQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Change sort or filter and reload
+     */
+    public void setQuery(OrderQuery newQuery) {
+        query = newQuery;
+        clearPages();
+        reload();
+    }
+
+    /**
+     * Fetch the row count and high watermark; rows are loaded as they are shown
+     */
+    public void reload() {
+        reload(null);
+    }
+
+    /**
+     * Reload and run a callback on the EDT once the new row count is applied
+     */
+    public void reload(Runnable onLoaded) {
+        OrderQuery requested = query;
+        asyncDAO.submit(() -> asyncDAO.getDao().getOrderCountAndMaxId(requested))
+            .whenComplete((stats, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    logger.log(Level.SEVERE, "Failed to load order board", error);
+                    return;
+                }
+                if (requested != query) {
+                    return;
+                }
+                markPagesStale();
+                rowCount = stats[0];
+                watermark = stats[1];
+                resetCountBaseline();
+                fireTableDataChanged();
+                if (onLoaded != null) {
+                    onLoaded.run();
+                }
+            }));
+    }
+
+    /**
+     * Apply new and removed orders from a polled delta.
+     * New orders are spliced in one row at a time; removals are only known
+     * as a count, so they leave the cached rows showing until refetched.
+     */
+    public void applyDelta(OrderDelta delta) {
+        if (delta == null) {
+            return;
+        }
+
+        List<Order> added = new ArrayList<>();
+        int newWatermark = watermark;
+        for (Order order : delta.addedOrders()) {
+            if (order.id() > watermark) {
+                added.add(order);
+                newWatermark = Math.max(newWatermark, order.id());
+            }
+        }
+        boolean removed = delta.remainingCount() != rowCount;
+        if (added.isEmpty() && !removed) {
+            return;
+        }
+
+        watermark = newWatermark;
+        // remainingCount is exact, so the count is a fresh baseline for the feed
+        if (removed) {
+            markPagesStale();
+            rowCount = delta.remainingCount() + added.size();
+            resetCountBaseline();
+            fireTableDataChanged();
+            return;
+        }
+        boolean placed = true;
+        for (Order order : added) {
+            placed = insertRow(order, placed);
+        }
+        resetCountBaseline();
+        if (!placed) {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Apply entries from the order change feed.
+     * Each order is counted by ID: orders up to the last database count are
+     * already in it, later ones are added once, and removals subtract only
+     * what was counted. Tills commit out of ID order, so applying changes late,
+     * twice or interleaved with {@link #removeOrder(int)} keeps the count exact.
+     */
+    public void applyChanges(List<OrderChange> changes) {
+        // Cleared once a change can't be placed; the rest then just update the count
+        boolean placed = true;
+        for (OrderChange change : changes) {
+            if (!query.matches(change.customerName())) {
+                continue;
+            }
+            int orderId = change.orderId();
+            if (change.kind() == OrderChange.Kind.INSERTED) {
+                if (change.order() != null && orderId > countedUpTo
+                        && !removedSinceCount.contains(orderId) && addedSinceCount.add(orderId)) {
+                    watermark = Math.max(watermark, orderId);
+                    placed = insertRow(change.order(), placed);
+                }
+            } else if (change.kind() == OrderChange.Kind.DELETED && takeOffCount(orderId)) {
+                placed = deleteRow(orderId, placed);
+            }
+        }
+        if (!placed) {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Remove a single order, e.g. right after serving it
+     */
+    public void removeOrder(int orderId) {
+        if (indexOf(orderId) < 0 || !takeOffCount(orderId)) {
+            return;
+        }
+        if (!deleteRow(orderId, true)) {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Row order of the current sort, or null for the customer sort, whose
+     * order depends on the database collation
+     */
+    private Comparator<Order> rowOrder() {
+        return switch (query.sort()) {
+            case NEWEST -> NEWEST_FIRST;
+            case OLDEST -> Comparator.comparingInt(Order::id);
+            case TABLE -> Comparator.comparingInt(Order::tableNumber).thenComparing(NEWEST_FIRST);
+            case CUSTOMER -> null;
+        };
+    }
+
+    /**
+     * Count a new order and splice it into the cached pages, announcing the row.
+     * Pages after it move down one row. Once placing has failed (placed is
+     * false) the row is only counted and the caller repaints everything.
+     *
+     * @return whether the row was placed
+     */
+    private boolean insertRow(Order order, boolean placed) {
+        Comparator<Order> rowOrder = rowOrder();
+        placed &= rowOrder != null;
+        generation++;
+        loadingPages.clear();
+        rowCount++;
+        if (!placed) {
+            markPagesStale();
+            return false;
+        }
+
+        // Where it lands: inside a cached page, or at the start of the first page after it
+        int index = rowCount - 1;
+        Page inside = null;
+        for (Page page : pages.values()) {
+            if (page.rows.isEmpty()) {
+                continue;
+            }
+            if (rowOrder.compare(order, page.rows.get(0)) < 0) {
+                index = Math.min(index, page.firstRow);
+            } else if (rowOrder.compare(order, page.rows.get(page.rows.size() - 1)) < 0) {
+                int position = Collections.binarySearch(page.rows, order, rowOrder);
+                position = position < 0 ? -position - 1 : position;
+                if (page.firstRow + position < index || inside == null) {
+                    index = Math.min(index, page.firstRow + position);
+                    inside = page;
+                }
+            }
+        }
+        // Between two pages, or at either end: the page ending just before it, or starting
+        // at the top, takes the row too, so it shows without a fetch
+        if (inside == null) {
+            for (Page page : pages.values()) {
+                if (!page.stale && (page.firstRow + page.rows.size() == index || (index == 0 && page.firstRow == 0))) {
+                    inside = page;
+                    break;
+                }
+            }
+        }
+
+        for (Page page : pages.values()) {
+            if (page == inside) {
+                page.rows.add(index - page.firstRow, order);
+            } else if (page.firstRow >= index) {
+                page.firstRow++;
+            } else if (page.covers(index)) {
+                page.stale = true; // An older copy of these rows; its refetch sorts it out
+            }
+        }
+        fireTableRowsInserted(index, index);
+        return true;
+    }
+
+    /**
+     * Uncount a removed order and take it out of the cached pages, announcing
+     * the row. Pages after it move up one row. An order that isn't cached can
+     * only be placed by ID, so on other sorts the pages are marked stale.
+     *
+     * @return whether the row was placed
+     */
+    private boolean deleteRow(int orderId, boolean placed) {
+        generation++;
+        loadingPages.clear();
+
+        int index = indexOf(orderId);
+        boolean byId = query.sort() == OrderQuery.Sort.NEWEST || query.sort() == OrderQuery.Sort.OLDEST;
+        placed &= index >= 0 || byId;
+
+        if (placed && index >= 0) {
+            for (Page page : pages.values()) {
+                if (page.covers(index) && page.rows.get(index - page.firstRow).id() == orderId) {
+                    page.rows.remove(index - page.firstRow);
+                } else if (page.covers(index)) {
+                    page.stale = true; // An older copy of these rows; its refetch sorts it out
+                } else if (page.firstRow > index) {
+                    page.firstRow--;
+                }
+            }
+        } else if (placed) {
+            // Not cached: it sits in a gap, before every page whose rows come after it
+            Comparator<Order> rowOrder = rowOrder();
+            Order removed = new Order(orderId, "", 0, "", "", 0);
+            index = rowCount - 1;
+            for (Page page : pages.values()) {
+                if (page.rows.isEmpty()) {
+                    continue;
+                }
+                if (rowOrder.compare(removed, page.rows.get(0)) < 0) {
+                    index = Math.min(index, page.firstRow);
+                    page.firstRow--;
+                } else if (rowOrder.compare(removed, page.rows.get(page.rows.size() - 1)) < 0) {
+                    page.stale = true; // Should have held it; its rows can't be trusted
+                }
+            }
+        }
+
+        rowCount--;
+        if (!placed) {
+            markPagesStale();
+            return false;
+        }
+        fireTableRowsDeleted(index, index);
+        return true;
+    }
+
+    /**
+     * Record an order as removed; true if it was in rowCount and hadn't been removed yet
+     */
+    private boolean takeOffCount(int orderId) {
+        if (!removedSinceCount.add(orderId)) {
+            return false;
+        }
+        return addedSinceCount.remove(orderId) || orderId <= countedUpTo;
+    }
+
+    private void resetCountBaseline() {
+        countedUpTo = watermark;
+        addedSinceCount.clear();
+        removedSinceCount.clear();
+    }
+
+    private Order getRow(int rowIndex) {
+        Page page = findPage(rowIndex);
+        if (page == null || page.stale) {
+            requestPage(rowIndex / PAGE_SIZE);
+        }
+        if (page == null) {
+            return null;
+        }
+        pages.get(page.number); // Mark recently used
+        return page.rows.get(rowIndex - page.firstRow);
+    }
+
+    /**
+     * The cached page holding a row, preferring a fresh one, or null
+     */
+    private Page findPage(int rowIndex) {
+        Page found = null;
+        for (Page page : pages.values()) {
+            if (page.covers(rowIndex)) {
+                if (!page.stale) {
+                    return page;
+                }
+                found = page;
+            }
+        }
+        return found;
+    }
+
+    private void requestPage(int page) {
+        if (!loadingPages.add(page)) {
+            return;
+        }
+
+        int requestGeneration = generation;
+        OrderQuery requested = query;
+        int upperBound = watermark;
+        // Keyset anchor: the last row before this page, if it is cached and current
+        Page previous = page > 0 ? findPage(page * PAGE_SIZE - 1) : null;
+        int afterId = previous != null && !previous.stale
+                ? previous.rows.get(page * PAGE_SIZE - 1 - previous.firstRow).id() : 0;
+
+        asyncDAO.submit(() -> {
+            CafeDAO dao = asyncDAO.getDao();
+            List<Order> rows = dao.getOrderPage(requested, upperBound, afterId, page * PAGE_SIZE, PAGE_SIZE);
+            if (rows.isEmpty() && afterId > 0) {
+                // The anchor row was served in the meantime; fall back to offset
+                rows = dao.getOrderPage(requested, upperBound, 0, page * PAGE_SIZE, PAGE_SIZE);
+            }
+            return rows;
+        }).whenComplete((rows, error) -> SwingUtilities.invokeLater(() -> {
+            if (requested != query) {
+                return;
+            }
+            // Rows moved while this load ran: keep it only to show until the next load
+            boolean current = requestGeneration == generation;
+            if (current) {
+                loadingPages.remove(page);
+            }
+            if (error != null) {
+                logger.log(Level.SEVERE, "Failed to load order page " + page, error);
+                return;
+            }
+            Page cached = pages.get(page);
+            if (!current && cached != null && !cached.stale) {
+                return;
+            }
+
+            Page loaded = new Page(page, page * PAGE_SIZE, new ArrayList<>(rows));
+            loaded.stale = !current;
+            pages.put(page, loaded);
+            int first = loaded.firstRow;
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }));
+    }
+
+    /**
+     * Keep the cached rows on screen but refetch them as they are painted
+     */
+    private void markPagesStale() {
+        generation++;
+        loadingPages.clear();
+        for (Page page : pages.values()) {
+            page.stale = true;
+        }
+    }
+
+    private void clearPages() {
+        generation++;
+        pages.clear();
+        loadingPages.clear();
+    }
+
+    private int indexOf(int orderId) {
+        for (Page page : pages.values()) {
+            List<Order> rows = page.rows;
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).id() == orderId) {
+                    return page.firstRow + i;
+                }
+            }
+        }
+        return -1;
+    }
+}
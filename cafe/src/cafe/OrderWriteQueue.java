@@ -0,0 +1,250 @@
+package cafe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind queue for new orders.
+ * The cashier's thread only journals the order and wakes the writer; a
+ * single writer thread takes whatever has piled up in the journal, oldest
+ * first, and writes it with {@link CafeDAO#insertOrders(List)}, one
+ * transaction per group. The journal, not memory, is what the writer works
+ * from, so orders left by a crash are written first on the next start and
+ * a long database outage never makes the cashier wait.
+ *
+ * A group is retried only while the database can't be reached. If the
+ * database is up and still refuses the group, its orders are written one by
+ * one, and any the database refuses on its own (a name too long for
+ * Nama_Pemesan, a menu item deleted meanwhile) is moved to orders.rejected so
+ * the orders behind it aren't held up.
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>cafe.journal.dir - directory of orders.journal (default ~/.cafe, see {@link CafeDAO#getLocalDirectory()})</li>
+ *   <li>cafe.writeBehind.capacity - wake-ups held for the writer; orders beyond it wait in the journal only (default 1000)</li>
+ *   <li>cafe.writeBehind.maxGroup - most orders per transaction (default 200)</li>
+ * </ul>
+ */
+public class OrderWriteQueue implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(OrderWriteQueue.class.getName());
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+    private final CafeDAO dao;
+    private final OrderJournal journal;
+    // Only wakes the writer; the orders themselves are read back from the journal
+    private final BlockingQueue<QueuedOrder> queue;
+    private final int maxGroup;
+    // Orders the database refused while reachable; they stay outstanding there for good
+    private final OrderJournal rejected;
+    private final Listener listener;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean unreachable;
+
+    /**
+     * Called on the writer thread
+     */
+    public interface Listener {
+        /**
+         * A group of orders is in the database
+         */
+        void ordersCommitted(List<QueuedOrder> orders);
+
+        /**
+         * The database refused an order while reachable; it was moved to the rejected journal
+         */
+        void orderRejected(QueuedOrder order);
+    }
+
+    public OrderWriteQueue(CafeDAO dao, OrderJournal journal, OrderJournal rejected, int capacity, int maxGroup,
+                           Listener listener) {
+        this.dao = dao;
+        this.journal = journal;
+        this.rejected = rejected;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxGroup = maxGroup;
+        this.listener = listener;
+        this.writer = new Thread(this::writeLoop, "cafe-order-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue configured from system properties, journaling to cafe.journal.dir
+     */
+    public static OrderWriteQueue fromSystemProperties(CafeDAO dao, Listener listener) throws IOException {
+        Path directory = CafeDAO.getLocalDirectory();
+        return new OrderWriteQueue(dao, new OrderJournal(directory.resolve("orders.journal")),
+                new OrderJournal(directory.resolve("orders.rejected")),
+                Integer.getInteger("cafe.writeBehind.capacity", 1000),
+                Integer.getInteger("cafe.writeBehind.maxGroup", 200),
+                listener);
+    }
+
+    /**
+     * Accept an order: it is on local disk when this returns and reaches the
+     * database shortly after. Never blocks on the database.
+     */
+    public void enqueue(QueuedOrder order) throws IOException {
+        journal.append(order);
+        // A full queue means the writer already has a wake-up pending
+        queue.offer(order);
+    }
+
+    /**
+     * Orders accepted but not yet in the database
+     */
+    public int getPendingCount() {
+        return journal.getOutstandingCount();
+    }
+
+    /**
+     * Orders the database refused, kept in orders.rejected
+     */
+    public int getRejectedCount() {
+        return rejected.getOutstandingCount();
+    }
+
+    /**
+     * True while the writer's last attempt found no connection could be opened
+     * ({@link CafeDAO#isReachable()}); cleared once the database answers, even
+     * by refusing an order
+     */
+    public boolean isUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * Stop the writer after the current group; unwritten orders stay in the journal
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        rejected.close();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            // Clear wake-ups first: anything journaled after this is either in the read below or wakes us again
+            queue.clear();
+            List<QueuedOrder> group = journal.getOutstanding(maxGroup);
+            if (!group.isEmpty()) {
+                write(group);
+                continue;
+            }
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Write one group, retrying with backoff while the database is unreachable
+     * and order by order once it refuses the group while reachable
+     */
+    private void write(List<QueuedOrder> group) {
+        long delay = 500;
+        while (running) {
+            if (insert(group)) {
+                committed(group);
+                return;
+            }
+            if (dao.isReachable()) {
+                writeEach(group);
+                return;
+            }
+
+            unreachable = true;
+            logger.warning("Group of " + group.size() + " order(s) not written; retrying in " + delay + " ms");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(MAX_RETRY_DELAY_MILLIS, delay * 2);
+        }
+    }
+
+    /**
+     * Write a refused group one order at a time, setting aside each order the
+     * database refuses while still reachable. Stops at a lost connection; the
+     * rest are read back from the journal and retried as a group.
+     */
+    private void writeEach(List<QueuedOrder> group) {
+        for (QueuedOrder order : group) {
+            if (!running) {
+                return;
+            }
+            if (insert(List.of(order))) {
+                committed(List.of(order));
+            } else if (dao.isReachable()) {
+                if (!reject(order)) {
+                    try {
+                        Thread.sleep(MAX_RETRY_DELAY_MILLIS);
+                    } catch (InterruptedException e) {
+                        // Closing
+                    }
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void committed(List<QueuedOrder> group) {
+        try {
+            journal.markCommitted(group);
+        } catch (IOException e) {
+            // Harmless: the orders are replayed and skipped by client key
+            logger.log(Level.WARNING, "Failed to journal commit of " + group.size() + " order(s)", e);
+        }
+        unreachable = false;
+        listener.ordersCommitted(List.copyOf(group));
+    }
+
+    private boolean reject(QueuedOrder order) {
+        logger.severe("Database refused order " + order.clientKey() + " for " + order.customerName()
+                + "; moved to the rejected journal");
+        try {
+            // Rejected first, so a crash in between leaves the order in both files rather than neither
+            rejected.append(order);
+            journal.markCommitted(List.of(order));
+        } catch (IOException e) {
+            // Left outstanding: it is tried again after the rest of the journal
+            logger.log(Level.SEVERE, "Failed to move order " + order.clientKey() + " to the rejected journal", e);
+            return false;
+        }
+        unreachable = false;
+        listener.orderRejected(order);
+        return true;
+    }
+
+    private boolean insert(List<QueuedOrder> group) {
+        try {
+            return dao.insertOrders(group);
+        } catch (RuntimeException e) {
+            // No connection could be borrowed; the database is down
+            logger.log(Level.FINE, "Order writer could not reach the database", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package cafe;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An order accepted by the till but not yet written to the database
+ *
+ * @param clientKey unique key stored as Pesanan.Client_Key; makes writing it idempotent
+ * @param customerName Nama_Pemesan
+ * @param employeeId ID_Pegawai
+ * @param tableNumber Nomor_Meja
+ * @param notes note stored with every detail row
+ * @param paymentMethod Metode_Pembayaran
+ * @param lines order lines, already aggregated per menu item
+ * @param acceptedAtMillis when the cashier placed it; its date becomes Tanggal_Pesanan
+ */
+public record QueuedOrder(UUID clientKey, String customerName, int employeeId, int tableNumber,
+                          String notes, String paymentMethod, List<OrderLine> lines, long acceptedAtMillis) {
+
+    public static QueuedOrder create(String customerName, int employeeId, int tableNumber,
+                                     String notes, String paymentMethod, List<OrderLine> lines) {
+        return new QueuedOrder(UUID.randomUUID(), customerName, employeeId, tableNumber, notes, paymentMethod,
+                List.copyOf(OrderLine.aggregate(lines)), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,320 @@
+package cafe;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory cache of the reference data behind order entry (Menu, Pegawai, Meja).
+ * The data is held as an immutable, versioned snapshot that is swapped atomically;
+ * readers never block and never hit the database once the snapshot is loaded.
+ * Every snapshot loaded from the database is also saved to a local file, which
+ * stands in for the database when it can't be reached (offline mode).
+ */
+public class ReferenceDataCache {
+
+    private static final Logger logger = Logger.getLogger(ReferenceDataCache.class.getName());
+
+    // Rows per round trip; rows are mapped straight into the snapshot lists
+    private static final int REFERENCE_FETCH_SIZE = 500;
+
+    /**
+     * Immutable view of all reference data at one version
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<MenuItem> menuItems;
+        private final Map<Integer, MenuItem> menuById;
+        private final List<Employee> employees;
+        private final List<Table> tables;
+        private final boolean local;
+
+        private Snapshot(long version, List<MenuItem> menuItems, List<Employee> employees, List<Table> tables,
+                         boolean local) {
+            this.version = version;
+            this.local = local;
+            this.menuItems = Collections.unmodifiableList(menuItems);
+            this.employees = Collections.unmodifiableList(employees);
+            this.tables = Collections.unmodifiableList(tables);
+
+            Map<Integer, MenuItem> byId = new HashMap<>();
+            for (MenuItem item : menuItems) {
+                byId.put(item.id(), item);
+            }
+            this.menuById = Collections.unmodifiableMap(byId);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<MenuItem> getMenuItems() {
+            return menuItems;
+        }
+
+        public MenuItem getMenuById(int menuId) {
+            return menuById.get(menuId);
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public List<Table> getTables() {
+            return tables;
+        }
+
+        /**
+         * True if this snapshot came from the local copy instead of the database
+         */
+        public boolean isLocal() {
+            return local;
+        }
+    }
+
+    // Identifies the local copy's format
+    private static final int LOCAL_COPY_MAGIC = 0xCAFE0001;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService refresher;
+    private ScheduledFuture<?> refreshTask;
+    private final Path localCopy;
+
+    /**
+     * Cache without a local copy
+     */
+    public ReferenceDataCache() {
+        this(null);
+    }
+
+    /**
+     * @param localCopy file the last database snapshot is saved to, or null for none
+     */
+    public ReferenceDataCache(Path localCopy) {
+        this.localCopy = localCopy;
+    }
+
+    /**
+     * Get the current snapshot, loading it on first use or after invalidation.
+     * Falls back to the local copy if the database can't be reached.
+     */
+    public Snapshot get() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        try {
+            return reload();
+        } catch (SQLException | RuntimeException e) {
+            if (localCopy == null || !Files.exists(localCopy)) {
+                throw e;
+            }
+            logger.log(Level.WARNING, "Reference data unavailable from the database; using the local copy", e);
+            try {
+                return loadLocalCopy();
+            } catch (IOException ex) {
+                e.addSuppressed(ex);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * True while the snapshot in use came from the local copy
+     */
+    public boolean isUsingLocalCopy() {
+        Snapshot current = snapshot;
+        return current != null && current.isLocal();
+    }
+
+    /**
+     * Publish the local copy without trying the database first.
+     * It is replaced by the next successful reload.
+     */
+    public synchronized Snapshot loadLocalCopy() throws IOException {
+        if (localCopy == null) {
+            throw new IOException("No local copy of the reference data is configured");
+        }
+        long loadVersion = version.get();
+        List<MenuItem> menuItems = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        List<Table> tables = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(localCopy))) {
+            if (in.readInt() != LOCAL_COPY_MAGIC) {
+                throw new IOException("Not a reference data copy: " + localCopy);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                menuItems.add(new MenuItem(in.readInt(), in.readUTF(), in.readUTF(), in.readInt()));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                employees.add(new Employee(in.readInt(), in.readUTF()));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                tables.add(new Table(in.readInt(), in.readInt()));
+            }
+        }
+
+        Snapshot loaded = new Snapshot(loadVersion, menuItems, employees, tables, true);
+        if (version.get() == loadVersion) {
+            snapshot = loaded;
+        }
+        logger.info("Reference data loaded from local copy " + localCopy);
+        return loaded;
+    }
+
+    /**
+     * Save a database snapshot to the local copy; written to a temporary file and moved into place
+     */
+    private void saveLocalCopy(Snapshot saved) {
+        if (localCopy == null) {
+            return;
+        }
+        try {
+            Path parent = localCopy.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "reference", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(LOCAL_COPY_MAGIC);
+                out.writeInt(saved.menuItems.size());
+                for (MenuItem item : saved.menuItems) {
+                    out.writeInt(item.id());
+                    out.writeUTF(item.name());
+                    out.writeUTF(item.category());
+                    out.writeInt(item.price());
+                }
+                out.writeInt(saved.employees.size());
+                for (Employee employee : saved.employees) {
+                    out.writeInt(employee.id());
+                    out.writeUTF(employee.name());
+                }
+                out.writeInt(saved.tables.size());
+                for (Table table : saved.tables) {
+                    out.writeInt(table.number());
+                    out.writeInt(table.capacity());
+                }
+            }
+            Files.move(temp, localCopy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to save local copy of reference data to " + localCopy, e);
+        }
+    }
+
+    /**
+     * Load all reference data in one round trip and publish it as the new snapshot
+     */
+    public synchronized Snapshot reload() throws SQLException {
+        long loadVersion = version.get();
+
+        String query = """
+            SELECT ID_Menu, Nama_Menu, Kategori, Harga FROM Menu ORDER BY ID_Menu;
+            SELECT ID_Pegawai, Nama_Pegawai FROM Pegawai ORDER BY ID_Pegawai;
+            SELECT Nomor_Meja, Kapasitas FROM Meja ORDER BY Nomor_Meja;
+        """;
+
+        List<MenuItem> menuItems = new ArrayList<>();
+        List<Employee> employees = new ArrayList<>();
+        List<Table> tables = new ArrayList<>();
+
+        MetricsRegistry.Span span = MetricsRegistry.get().start("referenceData.reload");
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            DatabaseConnection.configureStreaming(stmt, REFERENCE_FETCH_SIZE);
+
+            stmt.execute(query);
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    menuItems.add(new MenuItem(rs.getInt("ID_Menu"), rs.getString("Nama_Menu"),
+                            rs.getString("Kategori"), rs.getInt("Harga")));
+                }
+            }
+
+            stmt.getMoreResults();
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    employees.add(new Employee(rs.getInt("ID_Pegawai"), rs.getString("Nama_Pegawai")));
+                }
+            }
+
+            stmt.getMoreResults();
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    tables.add(new Table(rs.getInt("Nomor_Meja"), rs.getInt("Kapasitas")));
+                }
+            }
+            span.rowsRead(menuItems.size() + employees.size() + tables.size());
+        } catch (SQLException e) {
+            span.failed();
+            throw e;
+        } finally {
+            span.close();
+        }
+
+        Snapshot loaded = new Snapshot(loadVersion, menuItems, employees, tables, false);
+        // An invalidation that raced with the load makes this snapshot stale; serve it but don't keep it
+        if (version.get() == loadVersion) {
+            snapshot = loaded;
+            saveLocalCopy(loaded);
+        }
+        logger.fine("Reference data loaded at version " + loadVersion);
+        return loaded;
+    }
+
+    /**
+     * Drop the current snapshot; the next read reloads from the database.
+     * Call after any write to Menu, Pegawai or Meja.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * Reload the snapshot in the background every ttlMillis, so edits made
+     * outside this application show up without a manual refresh
+     */
+    public synchronized void startAutoRefresh(long ttlMillis) {
+        stopAutoRefresh();
+        if (refresher == null) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cafe-reference-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        refreshTask = refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (SQLException | RuntimeException e) {
+                logger.log(Level.WARNING, "Background reference data refresh failed", e);
+            }
+        }, ttlMillis, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopAutoRefresh() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package cafe;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sales reports from the hourly rollup tables (Rekap_Menu, Rekap_Pegawai,
+ * Rekap_Meja, Rekap_Pembayaran). Reports never touch Pesanan or
+ * Detail_Pesanan; a year is at most a few hundred thousand rollup rows.
+ * {@link #updateRollups()} folds in orders placed since the last run.
+ * The report window runs it before every report, and so does
+ * {@link OrderArchiver} before moving orders out of Pesanan.
+ */
+public class ReportDAO {
+
+    private static final Logger logger = Logger.getLogger(ReportDAO.class.getName());
+
+    private static final MetricsRegistry metrics = MetricsRegistry.get();
+
+    // Orders folded in per transaction
+    private static final int ROLLUP_BATCH_SIZE = 50000;
+
+    // How long to wait for another till's rollup run, in milliseconds
+    private static final int ROLLUP_LOCK_TIMEOUT = 10000;
+
+    /**
+     * What a sales report is grouped by
+     */
+    public enum Dimension {
+        DAY("Per Hari", "Tanggal"),
+        HOUR("Per Jam", "Jam"),
+        MENU("Per Menu", "Menu"),
+        EMPLOYEE("Per Pegawai", "Pegawai"),
+        TABLE("Per Meja", "Meja"),
+        PAYMENT("Per Metode Pembayaran", "Metode Pembayaran");
+
+        private final String title;
+        private final String columnName;
+
+        Dimension(String title, String columnName) {
+            this.title = title;
+            this.columnName = columnName;
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    // Adds the new orders' lines in #lines to one rollup; %1$s table, %2$s key column, %3$s filter
+    private static final String MERGE_ROLLUP = """
+            MERGE %1$s AS t
+            USING (SELECT Tanggal, Jam, %2$s AS Kunci, COUNT(DISTINCT ID_Pesanan) AS Jumlah_Pesanan,
+                          SUM(ISNULL(Jumlah, 0)) AS Jumlah_Item, SUM(CAST(ISNULL(Subtotal, 0) AS BIGINT)) AS Pendapatan
+                   FROM #lines %3$s
+                   GROUP BY Tanggal, Jam, %2$s) AS s
+            ON t.Tanggal = s.Tanggal AND t.Jam = s.Jam AND t.%2$s = s.Kunci
+            WHEN MATCHED THEN UPDATE SET
+                Jumlah_Pesanan = t.Jumlah_Pesanan + s.Jumlah_Pesanan,
+                Jumlah_Item = t.Jumlah_Item + s.Jumlah_Item,
+                Pendapatan = t.Pendapatan + s.Pendapatan
+            WHEN NOT MATCHED THEN
+                INSERT (Tanggal, Jam, %2$s, Jumlah_Pesanan, Jumlah_Item, Pendapatan)
+                VALUES (s.Tanggal, s.Jam, s.Kunci, s.Jumlah_Pesanan, s.Jumlah_Item, s.Pendapatan);
+        """;
+
+    // One batch: the next orders past the position, with their details, into every rollup.
+    // Orders and their details are written in one transaction, and under READ COMMITTED
+    // the scan waits on uncommitted orders, so none is skipped.
+    private static final String ROLLUP_QUERY = """
+            SET NOCOUNT ON;
+            -- Implicit transactions don't start on EXEC, and a Transaction-owned lock needs one
+            IF @@TRANCOUNT = 0 BEGIN TRANSACTION;
+            DECLARE @lock INT;
+            EXEC @lock = sp_getapplock @Resource = 'cafe.rollup', @LockMode = 'Exclusive',
+                                       @LockOwner = 'Transaction', @LockTimeout = ?;
+            IF @lock < 0
+            BEGIN
+                SELECT @lock;
+                RETURN;
+            END;
+
+            DECLARE @last INT = (SELECT ID_Terakhir FROM Rekap_Posisi WHERE Nama = 'Pesanan');
+
+            -- Day and hour both come from Waktu_Pesanan, so an order near midnight can't straddle two days
+            SELECT TOP (?) ID_Pesanan, CAST(Waktu_Pesanan AS DATE) AS Tanggal,
+                   CAST(DATEPART(HOUR, Waktu_Pesanan) AS TINYINT) AS Jam,
+                   ISNULL(ID_Pegawai, 0) AS ID_Pegawai, ISNULL(Nomor_Meja, 0) AS Nomor_Meja, Metode_Pembayaran
+            INTO #orders
+            FROM Pesanan
+            WHERE ID_Pesanan > @last
+            ORDER BY ID_Pesanan;
+
+            SELECT o.ID_Pesanan, o.Tanggal, o.Jam, o.ID_Pegawai, o.Nomor_Meja,
+                   o.Metode_Pembayaran, dp.ID_Menu, dp.Jumlah, dp.Subtotal
+            INTO #lines
+            FROM #orders o
+            LEFT JOIN Detail_Pesanan dp ON dp.ID_Pesanan = o.ID_Pesanan;
+        """
+        + String.format(MERGE_ROLLUP, "Rekap_Menu", "ID_Menu", "WHERE ID_Menu IS NOT NULL")
+        + String.format(MERGE_ROLLUP, "Rekap_Pegawai", "ID_Pegawai", "")
+        + String.format(MERGE_ROLLUP, "Rekap_Meja", "Nomor_Meja", "")
+        + String.format(MERGE_ROLLUP, "Rekap_Pembayaran", "Metode_Pembayaran", "")
+        + """
+            DECLARE @count INT = (SELECT COUNT(*) FROM #orders);
+            IF @count > 0
+                UPDATE Rekap_Posisi SET ID_Terakhir = (SELECT MAX(ID_Pesanan) FROM #orders) WHERE Nama = 'Pesanan';
+
+            DROP TABLE #lines;
+            DROP TABLE #orders;
+            SELECT @count;
+        """;
+
+    /**
+     * Fold every order placed since the last run into the rollups, one
+     * transaction per batch. Waits while another till is doing the same.
+     *
+     * @return orders added, or -1 if the rollups couldn't be updated
+     */
+    public int updateRollups() {
+        MetricsRegistry.Span span = metrics.start("updateRollups");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int total = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(ROLLUP_QUERY)) {
+                int added;
+                do {
+                    stmt.setInt(1, ROLLUP_LOCK_TIMEOUT);
+                    stmt.setInt(2, ROLLUP_BATCH_SIZE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        added = rs.next() ? rs.getInt(1) : 0;
+                    }
+                    conn.commit();
+                    if (added == -1) {
+                        logger.warning("Sales rollups are locked by another till");
+                        span.failed();
+                        return -1;
+                    }
+                    if (added < 0) {
+                        throw new SQLException("sp_getapplock failed for cafe.rollup with " + added);
+                    }
+                    total += added;
+                } while (added == ROLLUP_BATCH_SIZE);
+            }
+
+            span.rowsWritten(total);
+            return total;
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to update sales rollups", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.log(Level.SEVERE, "Failed to rollback transaction", ex);
+                }
+            }
+            return -1;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to reset auto-commit", e);
+                }
+                DatabaseConnection.closeConnection(conn); // Return to pool
+            }
+            span.close();
+        }
+    }
+
+    /**
+     * Sales between two days, inclusive, grouped by the given dimension.
+     * Days and hours come in order; everything else by revenue, highest first.
+     */
+    public List<SalesRow> getSales(Dimension dimension, LocalDate from, LocalDate to) {
+        String query = switch (dimension) {
+            case DAY -> """
+                SELECT CONVERT(VARCHAR(10), r.Tanggal, 23) AS Label, %s
+                FROM Rekap_Pembayaran r WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.Tanggal ORDER BY r.Tanggal
+            """;
+            case HOUR -> """
+                SELECT RIGHT('0' + CAST(r.Jam AS VARCHAR(2)), 2) + ':00' AS Label, %s
+                FROM Rekap_Pembayaran r WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.Jam ORDER BY r.Jam
+            """;
+            case MENU -> """
+                SELECT ISNULL(m.Nama_Menu, CONCAT('Menu ', r.ID_Menu)) AS Label, %s
+                FROM Rekap_Menu r LEFT JOIN Menu m ON m.ID_Menu = r.ID_Menu
+                WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.ID_Menu, m.Nama_Menu ORDER BY SUM(r.Pendapatan) DESC
+            """;
+            case EMPLOYEE -> """
+                SELECT ISNULL(p.Nama_Pegawai, '-') AS Label, %s
+                FROM Rekap_Pegawai r LEFT JOIN Pegawai p ON p.ID_Pegawai = r.ID_Pegawai
+                WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.ID_Pegawai, p.Nama_Pegawai ORDER BY SUM(r.Pendapatan) DESC
+            """;
+            case TABLE -> """
+                SELECT CASE WHEN r.Nomor_Meja = 0 THEN '-' ELSE CONCAT('Meja ', r.Nomor_Meja) END AS Label, %s
+                FROM Rekap_Meja r WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.Nomor_Meja ORDER BY SUM(r.Pendapatan) DESC
+            """;
+            case PAYMENT -> """
+                SELECT r.Metode_Pembayaran AS Label, %s
+                FROM Rekap_Pembayaran r WHERE r.Tanggal BETWEEN ? AND ?
+                GROUP BY r.Metode_Pembayaran ORDER BY SUM(r.Pendapatan) DESC
+            """;
+        };
+        query = String.format(query,
+            "SUM(r.Jumlah_Pesanan) AS Jumlah_Pesanan, SUM(r.Jumlah_Item) AS Jumlah_Item, SUM(r.Pendapatan) AS Pendapatan");
+
+        List<SalesRow> rows = new ArrayList<>();
+        MetricsRegistry.Span span = metrics.start("getSales");
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new SalesRow(rs.getString("Label"), rs.getInt("Jumlah_Pesanan"),
+                        rs.getInt("Jumlah_Item"), rs.getLong("Pendapatan")));
+                }
+            }
+            span.rowsRead(rows.size());
+
+        } catch (SQLException e) {
+            span.failed();
+            logger.log(Level.SEVERE, "Failed to fetch sales report", e);
+        } finally {
+            span.close();
+        }
+
+        return rows;
+    }
+}
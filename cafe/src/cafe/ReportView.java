@@ -0,0 +1,126 @@
+package cafe;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.*;
+
+/**
+ * Sales report window: totals per day, hour, menu item, employee, table or
+ * payment method between two dates, read from the rollups kept by {@link ReportDAO}.
+ */
+@SuppressWarnings("serial") // Swing windows are never serialized
+public final class ReportView extends JFrame {
+
+    private static final Logger logger = Logger.getLogger(ReportView.class.getName());
+
+    private final ReportDAO reportDAO = new ReportDAO();
+    private final AsyncCafeDAO asyncDAO;
+
+    private final JTextField txtFrom = new JTextField(10);
+    private final JTextField txtTo = new JTextField(10);
+    private final JComboBox<ReportDAO.Dimension> cmbDimension = new JComboBox<>(ReportDAO.Dimension.values());
+    private final JButton btnShow = new JButton("Tampilkan");
+    private final SalesTableModel salesModel = new SalesTableModel();
+    private final JLabel statusLabel = new JLabel(" ");
+
+    public ReportView(CafeDAO cafeDAO) {
+        this.asyncDAO = new AsyncCafeDAO(cafeDAO);
+
+        setTitle("Nanaz Cafe - Laporan Penjualan");
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(new Color(245, 240, 230));
+        setLayout(new BorderLayout(8, 8));
+
+        LocalDate today = LocalDate.now();
+        txtFrom.setText(today.withDayOfMonth(1).toString());
+        txtTo.setText(today.toString());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.setBackground(new Color(212, 180, 131));
+        filters.add(new JLabel("Dari"));
+        filters.add(txtFrom);
+        filters.add(new JLabel("Sampai"));
+        filters.add(txtTo);
+        filters.add(cmbDimension);
+        btnShow.setBackground(new Color(183, 198, 139));
+        btnShow.addActionListener(e -> showReport());
+        filters.add(btnShow);
+        add(filters, BorderLayout.NORTH);
+
+        add(new JScrollPane(new JTable(salesModel)), BorderLayout.CENTER);
+
+        JPanel footer = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        footer.setOpaque(false);
+        footer.add(statusLabel);
+        add(footer, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                asyncDAO.shutdown();
+            }
+        });
+
+        setSize(700, 500);
+        setLocationByPlatform(true);
+        showReport();
+    }
+
+    /**
+     * Bring the rollups up to date, then load the selected report
+     */
+    private void showReport() {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(txtFrom.getText().trim());
+            to = LocalDate.parse(txtTo.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Format tanggal harus yyyy-MM-dd, mis. " + LocalDate.now(),
+                "Input Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (to.isBefore(from)) {
+            JOptionPane.showMessageDialog(this, "Tanggal akhir tidak boleh sebelum tanggal awal.",
+                "Input Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        ReportDAO.Dimension dimension = (ReportDAO.Dimension) cmbDimension.getSelectedItem();
+        btnShow.setEnabled(false);
+        statusLabel.setText("Memuat laporan...");
+        long started = System.nanoTime();
+
+        asyncDAO.submit(() -> {
+            reportDAO.updateRollups();
+            return reportDAO.getSales(dimension, from, to);
+        }).whenComplete((rows, error) -> SwingUtilities.invokeLater(() -> {
+            btnShow.setEnabled(true);
+            if (error != null) {
+                logger.log(Level.SEVERE, "Failed to load sales report", error);
+                statusLabel.setText("Gagal memuat laporan.");
+                return;
+            }
+            salesModel.setReport(dimension, rows);
+            statusLabel.setText(summarize(rows) + "   (" + (System.nanoTime() - started) / 1_000_000 + " ms)");
+        }));
+    }
+
+    private static String summarize(List<SalesRow> rows) {
+        long revenue = 0;
+        long items = 0;
+        for (SalesRow row : rows) {
+            revenue += row.revenue();
+            items += row.itemCount();
+        }
+        return "Total: Rp " + revenue + ", " + items + " item";
+    }
+}
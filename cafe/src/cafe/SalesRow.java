@@ -0,0 +1,12 @@
+package cafe;
+
+/**
+ * One row of a sales report
+ *
+ * @param label the day, hour, menu item, employee, table or payment method
+ * @param orderCount orders, or for a menu item the orders containing it
+ * @param itemCount units sold (sum of Jumlah)
+ * @param revenue sum of the detail subtotals in rupiah
+ */
+public record SalesRow(String label, int orderCount, int itemCount, long revenue) {
+}
@@ -0,0 +1,49 @@
+package cafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Rows of one sales report; the first column is named after the report's dimension
+ */
+@SuppressWarnings("serial") // Swing models are never serialized
+public class SalesTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"", "Pesanan", "Item", "Pendapatan"};
+
+    private List<SalesRow> rows = new ArrayList<>();
+    private String labelColumnName = ReportDAO.Dimension.DAY.getColumnName();
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return column == 0 ? labelColumnName : COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        SalesRow row = rows.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> row.label();
+            case 1 -> row.orderCount();
+            case 2 -> row.itemCount();
+            default -> "Rp " + row.revenue();
+        };
+    }
+
+    public void setReport(ReportDAO.Dimension dimension, List<SalesRow> newRows) {
+        labelColumnName = dimension.getColumnName();
+        rows = new ArrayList<>(newRows);
+        fireTableStructureChanged();
+    }
+}
@@ -0,0 +1,293 @@
+package cafe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Applies the versioned schema scripts in cafe/migrations in order.
+ * Applied versions and their SHA-256 checksums are recorded in schema_version.
+ * A current database costs a single query on startup. Tills starting at the
+ * same time take turns through an application lock, so each version is
+ * applied once.
+ */
+public class SchemaMigrator {
+
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    // How long a till waits for another till's migrations to finish
+    private static final int LOCK_TIMEOUT_MILLIS = 120_000;
+
+    // Ordered list of scripts; add new ones at the end, never edit an applied one
+    private static final String[] MIGRATIONS = {
+        "V1__base_schema.sql",
+        "V2__indexes.sql",
+        "V3__order_line_quantity.sql",
+        "V4__order_client_key.sql",
+        "V5__order_change_log.sql",
+        "V6__order_line_status.sql",
+        "V7__order_status_archive.sql",
+        "V8__sales_rollups.sql",
+        "V9__local_clock.sql"
+    };
+
+    /**
+     * One versioned script
+     */
+    public record Migration(int version, String description, String script, String checksum) {
+    }
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator() {
+        migrations = new ArrayList<>();
+        for (String name : MIGRATIONS) {
+            migrations.add(load(name));
+        }
+    }
+
+    public int getLatestVersion() {
+        return migrations.get(migrations.size() - 1).version();
+    }
+
+    /**
+     * Bring the schema up to the latest version
+     *
+     * @return number of migrations applied
+     */
+    public int migrate(Connection conn) throws SQLException {
+        Map<Integer, String> applied = readAppliedVersions(conn);
+        if (isCurrent(applied)) {
+            return 0;
+        }
+
+        acquireLock(conn);
+        try {
+            // Another till may have migrated while this one waited for the lock
+            applied = readAppliedVersions(conn);
+            if (isCurrent(applied)) {
+                return 0;
+            }
+            int currentVersion = applied == null ? 0 : applied.keySet().stream().max(Integer::compare).orElse(0);
+
+            bootstrapVersionTable(conn, applied);
+            if (applied != null) {
+                verifyChecksums(applied);
+            }
+
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (migration.version() <= currentVersion) {
+                    continue;
+                }
+                apply(conn, migration);
+                count++;
+            }
+            return count;
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    private boolean isCurrent(Map<Integer, String> applied) throws SQLException {
+        if (applied == null) {
+            return false;
+        }
+        int currentVersion = applied.keySet().stream().max(Integer::compare).orElse(0);
+        if (currentVersion < getLatestVersion()) {
+            return false;
+        }
+        verifyChecksums(applied);
+        logger.fine("Schema is current at version " + currentVersion);
+        return true;
+    }
+
+    /**
+     * Session-owned, since each migration commits on its own
+     */
+    private void acquireLock(Connection conn) throws SQLException {
+        String query = """
+            SET NOCOUNT ON;
+            DECLARE @lock INT;
+            EXEC @lock = sp_getapplock @Resource = 'cafe.migrate', @LockMode = 'Exclusive',
+                                       @LockOwner = 'Session', @LockTimeout = ?;
+            SELECT @lock;
+        """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, LOCK_TIMEOUT_MILLIS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) < 0) {
+                    throw new SQLException("Timed out waiting for another till to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("EXEC sp_releaseapplock @Resource = 'cafe.migrate', @LockOwner = 'Session'");
+        }
+    }
+
+    /**
+     * One round trip: applied versions and checksums, or null if schema_version doesn't exist yet
+     */
+    private Map<Integer, String> readAppliedVersions(Connection conn) throws SQLException {
+        String query = """
+            IF OBJECT_ID(N'[dbo].[schema_version]', N'U') IS NOT NULL
+                SELECT * FROM schema_version
+        """;
+
+        try (Statement stmt = conn.createStatement()) {
+            if (!stmt.execute(query)) {
+                return null;
+            }
+            try (ResultSet rs = stmt.getResultSet()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                boolean hasChecksum = false;
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    hasChecksum |= "checksum".equalsIgnoreCase(meta.getColumnName(i));
+                }
+
+                Map<Integer, String> applied = new HashMap<>();
+                while (rs.next()) {
+                    applied.put(rs.getInt("version"), hasChecksum ? rs.getString("checksum") : null);
+                }
+                return applied;
+            }
+        }
+    }
+
+    /**
+     * Create schema_version, or add the checksum column to one created before checksums
+     */
+    private void bootstrapVersionTable(Connection conn, Map<Integer, String> applied) throws SQLException {
+        String createVersionTable = """
+            IF OBJECT_ID(N'[dbo].[schema_version]', N'U') IS NULL
+                CREATE TABLE schema_version(
+                    version INT PRIMARY KEY,
+                    description VARCHAR(200) NOT NULL,
+                    checksum CHAR(64) NULL,
+                    applied_at DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME()
+                );
+            ELSE IF COL_LENGTH('dbo.schema_version', 'checksum') IS NULL
+                ALTER TABLE schema_version ADD checksum CHAR(64) NULL;
+        """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(createVersionTable);
+        }
+
+        // Versions recorded before checksums existed adopt the current script's checksum
+        if (applied != null && applied.containsValue(null)) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE schema_version SET checksum = ? WHERE version = ? AND checksum IS NULL")) {
+                for (Migration migration : migrations) {
+                    if (applied.containsKey(migration.version()) && applied.get(migration.version()) == null) {
+                        stmt.setString(1, migration.checksum());
+                        stmt.setInt(2, migration.version());
+                        stmt.addBatch();
+                        applied.put(migration.version(), migration.checksum());
+                    }
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    private void verifyChecksums(Map<Integer, String> applied) throws SQLException {
+        for (Migration migration : migrations) {
+            String recorded = applied.get(migration.version());
+            if (recorded != null && !recorded.trim().equals(migration.checksum())) {
+                throw new SQLException("Schema version " + migration.version()
+                    + " was changed after it was applied (checksum mismatch)");
+            }
+        }
+    }
+
+    /**
+     * Run one script and record it, all in one transaction
+     */
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement record = conn.prepareStatement(
+                 "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+
+            for (String batch : splitBatches(migration.script())) {
+                stmt.execute(batch);
+            }
+
+            record.setInt(1, migration.version());
+            record.setString(2, migration.description());
+            record.setString(3, migration.checksum());
+            record.executeUpdate();
+
+            conn.commit();
+            logger.info("Applied schema version " + migration.version() + ": " + migration.description());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Split a script on lines containing only GO, like sqlcmd does
+     */
+    static List<String> splitBatches(String script) {
+        List<String> batches = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            if (line.trim().equalsIgnoreCase("GO")) {
+                if (!current.toString().isBlank()) {
+                    batches.add(current.toString());
+                }
+                current.setLength(0);
+            } else {
+                current.append(line).append('\n');
+            }
+        }
+        if (!current.toString().isBlank()) {
+            batches.add(current.toString());
+        }
+        return batches;
+    }
+
+    private static Migration load(String name) {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("migrations/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script not found: " + name);
+            }
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+
+            // V<version>__<description>.sql
+            int separator = name.indexOf("__");
+            int version = Integer.parseInt(name.substring(1, separator));
+            String description = name.substring(separator + 2, name.length() - ".sql".length()).replace('_', ' ');
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            return new Migration(version, description, script, HexFormat.of().formatHex(digest));
+
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to load migration " + name, e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cafe;
+
+/**
+ * One row of Meja
+ *
+ * @param number Nomor_Meja
+ * @param capacity Kapasitas
+ */
+public record Table(int number, int capacity) {
+
+    public String displayName() {
+        return "Meja " + number + " (Kapasitas: " + capacity + ")";
+    }
+}
@@ -4,24 +4,80 @@
  */
 package cafe;
 
+import java.awt.Component;
+import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.Connection;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.util.logging.Level;
 
 /**
  *
  * @author parasite
  */
+@SuppressWarnings("serial") // Swing windows are never serialized
 public class View extends javax.swing.JFrame {
     
     private static final java.util.logging.Logger logger = java.util.logging.Logger.getLogger(View.class.getName());
+
+    // Taken when the class is first used from main(), for the startup timing log
+    private static final long startNanos = System.nanoTime();
+    // Column sizes: Pesanan.Nama_Pemesan VARCHAR(40), Detail_Pesanan.Catatan VARCHAR(100)
+    private static final int MAX_CUSTOMER_NAME_LENGTH = 40;
+    private static final int MAX_NOTES_LENGTH = 100;
     private CafeDAO cafeDAO;
-    private DefaultTableModel tableModel;
+    private AsyncCafeDAO asyncDAO;
+    private OrderTableModel tableModel;
+
+    // Busy indicator and in-flight background work
+    private final Set<CompletableFuture<?>> runningTasks = ConcurrentHashMap.newKeySet();
+    // The long maintenance tasks among them, the only ones "Batalkan" cancels
+    private final Set<CompletableFuture<?>> maintenanceTasks = ConcurrentHashMap.newKeySet();
+    private JProgressBar busyIndicator;
+    private JButton btnCancel;
+
+    // False until reference data arrives; empty pickers show "Memuat..." meanwhile
+    private boolean referenceListsLoaded;
+
+    // Quantities set by double-clicking a menu item, by ID_Menu; unset means 1
+    private final Map<Integer, Integer> menuQuantities = new HashMap<>();
+
+    // Journals orders the database can't take right now; null if the journal can't be opened
+    private OrderWriteQueue orderQueue;
+    // With -Dcafe.writeBehind=true every new order goes through orderQueue
+    private final boolean writeBehind = Boolean.getBoolean("cafe.writeBehind");
+    // Set while the database is unreachable; orders are then only journaled
+    private volatile boolean offline;
+    // Pushes order board changes from other tills; null until started or if disabled
+    private OrderChangeFeed orderFeed;
+    // Moves served orders to the history tables; null until started or if disabled
+    private OrderArchiver orderArchiver;
+    private final OrderHistoryDAO orderHistoryDAO = new OrderHistoryDAO();
+
+    /**
+     * How a placed order was stored
+     */
+    private enum OrderOutcome {
+        SAVED, QUEUED, QUEUED_OFFLINE, FAILED
+    }
 
     /**
      * Creates new form View
@@ -29,10 +85,14 @@ public class View extends javax.swing.JFrame {
     public View() {
         initComponents();
         cafeDAO = new CafeDAO();
-        initializeData();
+        asyncDAO = new AsyncCafeDAO(cafeDAO);
+        setupOrderQueue();
+        setupRenderers();
+        setupTableModel();
+        loadPaymentMethods();
         setupEventHandlers();
         setupMenuBar(); // Add menu bar
-        loadOrdersTable();
+        initializeData();
     }
 
     /**
@@ -322,8 +382,8 @@ public class View extends javax.swing.JFrame {
     private javax.swing.JButton btnInput;
     private javax.swing.JButton btnLayani;
     private javax.swing.JComboBox<String> comboMetodePembayaran;
-    private javax.swing.JComboBox<String> comboNomorMeja;
-    private javax.swing.JComboBox<String> comboPegawai;
+    private javax.swing.JComboBox<Table> comboNomorMeja;
+    private javax.swing.JComboBox<Employee> comboPegawai;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
@@ -338,58 +398,268 @@ public class View extends javax.swing.JFrame {
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JScrollPane jScrollPane2;
     private javax.swing.JTable jTable1;
-    private javax.swing.JList<String> listMenu;
+    private javax.swing.JList<MenuItem> listMenu;
     private javax.swing.JTextField txtDetailPesanan;
     private javax.swing.JTextField txtPemesan;
     // End of variables declaration//GEN-END:variables
 
     /**
-     * Initialize data from database
+     * Initialize data from database in the background.
+     * The frame is shown right away with placeholders; once the schema is
+     * ready, reference data and the order board load concurrently.
      */
     private void initializeData() {
-        try {
+        showLoadingPlaceholders();
+
+        runInBackground(() -> {
             // Test database connection first
             if (!DatabaseConnection.testConnection()) {
+                return false;
+            }
+            logStartupPhase("database connection");
+
+            // Migrate schema; seeds only an empty database
+            cafeDAO.initializeSampleData();
+            logStartupPhase("schema check and seeding");
+            return true;
+        }, connected -> {
+            if (!connected) {
+                startOffline();
+                return;
+            }
+
+            int[] pendingLoads = { 2 };
+            Runnable loadFinished = () -> {
+                if (--pendingLoads[0] == 0) {
+                    logStartupPhase("first usable screen");
+                }
+            };
+
+            runInBackground(this::loadReferenceLists, lists -> {
+                applyReferenceLists(lists);
+                loadFinished.run();
+            }, "Initialization Error");
+            tableModel.reload(loadFinished);
+            startOrderFeed();
+            startOrderArchiver();
+        }, "Initialization Error");
+    }
+
+    /**
+     * Receive order changes from the hub (or become it); once connected,
+     * refreshOrders leaves the board to the feed
+     */
+    private void startOrderFeed() {
+        if (orderFeed != null) {
+            return;
+        }
+        orderFeed = OrderChangeFeed.fromSystemProperties(cafeDAO, new OrderChangeFeed.Listener() {
+            @Override
+            public void ordersChanged(List<OrderChange> changes) {
+                SwingUtilities.invokeLater(() -> tableModel.applyChanges(changes));
+            }
+
+            @Override
+            public void resync() {
+                SwingUtilities.invokeLater(tableModel::reload);
+            }
+        });
+        if (orderFeed != null) {
+            orderFeed.start();
+        }
+    }
+
+    private void startOrderArchiver() {
+        if (orderArchiver != null) {
+            return;
+        }
+        orderArchiver = OrderArchiver.fromSystemProperties(cafeDAO);
+        if (orderArchiver != null) {
+            orderArchiver.start();
+        }
+    }
+
+    /**
+     * Keep taking orders without a database, using the local copy of the
+     * reference data; exit if there is no journal or no local copy
+     */
+    private void startOffline() {
+        runInBackground(() -> {
+            if (orderQueue == null) {
+                return false;
+            }
+            try {
+                CafeDAO.getReferenceData().loadLocalCopy();
+                return true;
+            } catch (java.io.IOException e) {
+                logger.log(Level.WARNING, "No usable local copy of the reference data", e);
+                return false;
+            }
+        }, available -> {
+            if (!available) {
                 JOptionPane.showMessageDialog(this, 
                     "Tidak dapat terhubung ke database. Pastikan SQL Server sudah berjalan.",
                     "Database Error", JOptionPane.ERROR_MESSAGE);
                 System.exit(1);
             }
 
-            // Initialize sample data
-            cafeDAO.initializeSampleData();
-
-            // Load employees
-            loadEmployees();
-            
-            // Load menu items
-            loadMenuItems();
-            
-            // Load tables
-            loadTables();
-            
-            // Load payment methods
-            loadPaymentMethods();
-            
-            // Setup table model
-            setupTableModel();
-            
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to initialize data", e);
+            setOffline(true);
+            logStartupPhase("offline start");
+            runInBackground(this::loadReferenceLists, this::applyReferenceLists, "Initialization Error");
             JOptionPane.showMessageDialog(this, 
-                "Error initializing application: " + e.getMessage(),
-                "Initialization Error", JOptionPane.ERROR_MESSAGE);
+                "Tidak dapat terhubung ke database. Aplikasi berjalan offline:\n" +
+                "pesanan disimpan lokal dan dikirim otomatis saat database tersedia.",
+                "Offline", JOptionPane.WARNING_MESSAGE);
+        }, "Initialization Error");
+    }
+
+    /**
+     * Show "Memuat..." in the form until the real data arrives
+     */
+    private void showLoadingPlaceholders() {
+        referenceListsLoaded = false;
+        comboPegawai.setModel(new DefaultComboBoxModel<>());
+        comboNomorMeja.setModel(new DefaultComboBoxModel<>());
+        DefaultListModel<MenuItem> menuModel = new DefaultListModel<>();
+        menuModel.addElement(null); // Rendered as the placeholder
+        listMenu.setModel(menuModel);
+    }
+
+    /**
+     * Render employees, tables and menu items by name; the models hold the records
+     */
+    private void setupRenderers() {
+        comboPegawai.setRenderer(displayRenderer(Employee.class, Employee::name));
+        comboNomorMeja.setRenderer(displayRenderer(Table.class, Table::displayName));
+        listMenu.setCellRenderer(displayRenderer(MenuItem.class, item -> {
+            int quantity = menuQuantities.getOrDefault(item.id(), 1);
+            return quantity > 1 ? quantity + "x " + item.displayName() : item.displayName();
+        }));
+    }
+
+    private <T> DefaultListCellRenderer displayRenderer(Class<T> type, Function<T, String> toText) {
+        return new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String text = value != null ? toText.apply(type.cast(value))
+                    : referenceListsLoaded ? "" : "Memuat...";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        };
+    }
+
+    private static void logStartupPhase(String phase) {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        logger.info("Startup: " + phase + " after " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Employees, menu items and tables for the order form
+     */
+    private record ReferenceLists(List<Employee> employees, List<MenuItem> menuItems, List<Table> tables) {
+    }
+
+    /**
+     * Fetch employees, menu items and tables; runs off the EDT
+     */
+    private ReferenceLists loadReferenceLists() {
+        return new ReferenceLists(
+            cafeDAO.getAllEmployees(),
+            cafeDAO.getAllMenuItems(),
+            cafeDAO.getAvailableTables());
+    }
+
+    /**
+     * Push freshly loaded reference data into the form; runs on the EDT
+     */
+    private void applyReferenceLists(ReferenceLists lists) {
+        referenceListsLoaded = true;
+        loadEmployees(lists.employees());
+        loadMenuItems(lists.menuItems());
+        loadTables(lists.tables());
+    }
+
+    /**
+     * Run blocking work off the EDT and hand its result back on the EDT.
+     * The busy indicator stays on while any task is running.
+     */
+    private <T> CompletableFuture<T> runInBackground(Callable<T> task, Consumer<T> onSuccess, String errorTitle) {
+        return runInBackground(task, onSuccess, errorTitle, false);
+    }
+
+    /**
+     * Run a long maintenance task (seed, clear, export, import) in the background.
+     * Order entry stays usable meanwhile, and "Batalkan" can cancel it.
+     */
+    private <T> CompletableFuture<T> runMaintenance(Callable<T> task, Consumer<T> onSuccess, String errorTitle) {
+        return runInBackground(task, onSuccess, errorTitle, true);
+    }
+
+    private <T> CompletableFuture<T> runInBackground(Callable<T> task, Consumer<T> onSuccess, String errorTitle,
+                                                     boolean maintenance) {
+        CompletableFuture<T> future = asyncDAO.submit(task);
+        runningTasks.add(future);
+        if (maintenance) {
+            maintenanceTasks.add(future);
+        }
+        updateBusyState();
+
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            runningTasks.remove(future);
+            maintenanceTasks.remove(future);
+            updateBusyState();
+
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                logger.info("Background task cancelled");
+                return;
+            }
+            logger.log(Level.SEVERE, errorTitle, cause);
+            JOptionPane.showMessageDialog(this,
+                "Error: " + cause.getMessage(),
+                errorTitle, JOptionPane.ERROR_MESSAGE);
+        }));
+        return future;
+    }
+
+    /**
+     * Reflect the running tasks in the busy indicator and buttons; maintenance
+     * tasks leave order entry enabled
+     */
+    private void updateBusyState() {
+        boolean busy = !runningTasks.isEmpty();
+        boolean blocking = runningTasks.size() > maintenanceTasks.size();
+        busyIndicator.setVisible(busy);
+        busyIndicator.setIndeterminate(busy);
+        btnCancel.setEnabled(!maintenanceTasks.isEmpty());
+        btnInput.setEnabled(!blocking);
+        btnLayani.setEnabled(!blocking);
+        setCursor(blocking ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    /**
+     * Cancel the running maintenance tasks; order inserts and serves always finish
+     */
+    private void cancelMaintenanceTasks() {
+        for (CompletableFuture<?> future : maintenanceTasks) {
+            future.cancel(true);
         }
     }
 
     /**
      * Load employees into combo box
      */
-    private void loadEmployees() {
-        List<String> employees = cafeDAO.getAllEmployees();
-        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+    private void loadEmployees(List<Employee> employees) {
+        DefaultComboBoxModel<Employee> model = new DefaultComboBoxModel<>();
         
-        for (String employee : employees) {
+        for (Employee employee : employees) {
             model.addElement(employee);
         }
         
@@ -399,12 +669,10 @@ public class View extends javax.swing.JFrame {
     /**
      * Load menu items into list
      */
-    private void loadMenuItems() {
-        List<String> menuItems = cafeDAO.getAllMenuItems();
-        System.out.println("[LOGGGG] Menu Items: " + menuItems);
-        DefaultListModel<String> model = new DefaultListModel<>();
+    private void loadMenuItems(List<MenuItem> menuItems) {
+        DefaultListModel<MenuItem> model = new DefaultListModel<>();
         
-        for (String item : menuItems) {
+        for (MenuItem item : menuItems) {
             model.addElement(item);
         }
         
@@ -414,11 +682,10 @@ public class View extends javax.swing.JFrame {
     /**
      * Load tables into combo box
      */
-    private void loadTables() {
-        List<String> tables = cafeDAO.getAvailableTables();
-        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+    private void loadTables(List<Table> tables) {
+        DefaultComboBoxModel<Table> model = new DefaultComboBoxModel<>();
         
-        for (String table : tables) {
+        for (Table table : tables) {
             model.addElement(table);
         }
         
@@ -443,16 +710,7 @@ public class View extends javax.swing.JFrame {
      * Setup table model for orders
      */
     private void setupTableModel() {
-        String[] columnNames = {
-            "Pemesan", "Meja", "Menu Items", "Pembayaran", "Total"
-        };
-        
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        tableModel = new OrderTableModel(asyncDAO);
         
         jTable1.setModel(tableModel);
         
@@ -462,6 +720,95 @@ public class View extends javax.swing.JFrame {
         jTable1.getColumnModel().getColumn(2).setPreferredWidth(250); // Menu Items
         jTable1.getColumnModel().getColumn(3).setPreferredWidth(100); // Pembayaran
         jTable1.getColumnModel().getColumn(4).setPreferredWidth(100); // Total
+
+        // Keep ID_Pesanan in the model only
+        jTable1.removeColumn(jTable1.getColumnModel().getColumn(OrderTableModel.ORDER_ID_COLUMN));
+        jTable1.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+
+        // Header click sorts in SQL: Pemesan / Meja by value, other columns toggle newest/oldest
+        jTable1.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = jTable1.convertColumnIndexToModel(jTable1.columnAtPoint(e.getPoint()));
+                OrderQuery query = tableModel.getQuery();
+                OrderQuery.Sort sort = switch (column) {
+                    case 0 -> OrderQuery.Sort.CUSTOMER;
+                    case 1 -> OrderQuery.Sort.TABLE;
+                    default -> query.sort() == OrderQuery.Sort.NEWEST ? OrderQuery.Sort.OLDEST : OrderQuery.Sort.NEWEST;
+                };
+                tableModel.setQuery(query.withSort(sort));
+            }
+        });
+    }
+
+    /**
+     * Open the order journal and start its writer; orders left from an earlier run are written first
+     */
+    private void setupOrderQueue() {
+        try {
+            orderQueue = OrderWriteQueue.fromSystemProperties(cafeDAO, new OrderWriteQueue.Listener() {
+                @Override
+                public void ordersCommitted(List<QueuedOrder> orders) {
+                    SwingUtilities.invokeLater(View.this::handleOrdersCommitted);
+                }
+
+                @Override
+                public void orderRejected(QueuedOrder order) {
+                    SwingUtilities.invokeLater(() -> handleOrderRejected(order));
+                }
+            });
+        } catch (java.io.IOException e) {
+            logger.log(Level.SEVERE, "Failed to open the order journal; orders can't be taken offline", e);
+        }
+    }
+
+    /**
+     * A group of journaled orders reached the database
+     */
+    private void handleOrdersCommitted() {
+        if (!leaveOffline()) {
+            refreshOrders();
+        }
+    }
+
+    /**
+     * The writer reached the database, so leave offline mode if it was on
+     *
+     * @return whether offline mode was on
+     */
+    private boolean leaveOffline() {
+        if (offline) {
+            setOffline(false);
+            logger.info("Database reachable again; leaving offline mode");
+            if (CafeDAO.getReferenceData().isUsingLocalCopy()) {
+                CafeDAO.getReferenceData().invalidate();
+                runInBackground(this::loadReferenceLists, this::applyReferenceLists, "Refresh Error");
+            }
+            tableModel.reload();
+            startOrderFeed();
+            startOrderArchiver();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The database refused a journaled order; it was set aside so the orders behind it go through
+     */
+    private void handleOrderRejected(QueuedOrder order) {
+        // The database answered, so it is reachable even though the order didn't go in
+        leaveOffline();
+        JOptionPane.showMessageDialog(this,
+            "Pesanan atas nama " + order.customerName() + " (Meja " + order.tableNumber() + ") ditolak database\n" +
+            "dan tidak tersimpan. Pesanan dipindahkan ke " +
+            CafeDAO.getLocalDirectory().resolve("orders.rejected") + ";\n" +
+            "silakan input ulang pesanan tersebut.",
+            "Pesanan Ditolak", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void setOffline(boolean offline) {
+        this.offline = offline;
+        setTitle(offline ? "Nanaz Cafe (Offline)" : "Nanaz Cafe");
     }
 
     /**
@@ -483,6 +830,57 @@ public class View extends javax.swing.JFrame {
                 handleServeOrder();
             }
         });
+
+        // Double-click a menu item to order more than one
+        listMenu.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    int index = listMenu.locationToIndex(e.getPoint());
+                    if (index >= 0) {
+                        askMenuQuantity(index);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Ask how many of a menu item to order and select it
+     */
+    private void askMenuQuantity(int index) {
+        MenuItem item = listMenu.getModel().getElementAt(index);
+        if (item == null) {
+            return; // Loading placeholder
+        }
+
+        String input = JOptionPane.showInputDialog(this,
+            "Jumlah " + item.name() + ":",
+            menuQuantities.getOrDefault(item.id(), 1));
+        if (input == null) {
+            return;
+        }
+
+        int quantity;
+        try {
+            quantity = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            quantity = 0;
+        }
+        if (quantity < 1) {
+            JOptionPane.showMessageDialog(this, 
+                "Jumlah harus berupa angka minimal 1!", 
+                "Validation Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        if (quantity == 1) {
+            menuQuantities.remove(item.id());
+        } else {
+            menuQuantities.put(item.id(), quantity);
+        }
+        listMenu.addSelectionInterval(index, index);
+        listMenu.repaint();
     }
 
     /**
@@ -506,13 +904,63 @@ public class View extends javax.swing.JFrame {
         JMenuItem refreshDataItem = new JMenuItem("Refresh Data");
         refreshDataItem.addActionListener(e -> handleRefreshData());
         
+        // Order history file menu items
+        JMenuItem exportHistoryItem = new JMenuItem("Ekspor Riwayat Pesanan...");
+        exportHistoryItem.addActionListener(e -> handleExportHistory());
+
+        JMenuItem importHistoryItem = new JMenuItem("Impor Riwayat Pesanan...");
+        importHistoryItem.addActionListener(e -> handleImportHistory());
+
         databaseMenu.add(seedDataItem);
         databaseMenu.addSeparator();
         databaseMenu.add(refreshDataItem);
         databaseMenu.addSeparator();
+        databaseMenu.add(exportHistoryItem);
+        databaseMenu.add(importHistoryItem);
+        databaseMenu.addSeparator();
         databaseMenu.add(clearDataItem);
         
         menuBar.add(databaseMenu);
+
+        // Orders menu
+        JMenu ordersMenu = new JMenu("Pesanan");
+
+        JMenuItem searchItem = new JMenuItem("Cari Pemesan...");
+        searchItem.addActionListener(e -> handleSearchOrders());
+
+        JMenuItem showAllItem = new JMenuItem("Tampilkan Semua");
+        showAllItem.addActionListener(e -> tableModel.setQuery(OrderQuery.DEFAULT));
+
+        JMenuItem kitchenItem = new JMenuItem("Tampilan Dapur");
+        kitchenItem.addActionListener(e -> new KitchenView(cafeDAO).setVisible(true));
+
+        ordersMenu.add(searchItem);
+        ordersMenu.add(showAllItem);
+        ordersMenu.addSeparator();
+        ordersMenu.add(kitchenItem);
+
+        menuBar.add(ordersMenu);
+
+        // Reports menu
+        JMenu reportsMenu = new JMenu("Laporan");
+
+        JMenuItem salesReportItem = new JMenuItem("Laporan Penjualan...");
+        salesReportItem.addActionListener(e -> new ReportView(cafeDAO).setVisible(true));
+
+        reportsMenu.add(salesReportItem);
+
+        menuBar.add(reportsMenu);
+
+        // Busy indicator and cancel button, right-aligned
+        busyIndicator = new JProgressBar();
+        busyIndicator.setVisible(false);
+        btnCancel = new JButton("Batalkan");
+        btnCancel.setEnabled(false);
+        btnCancel.addActionListener(e -> cancelMaintenanceTasks());
+
+        menuBar.add(Box.createHorizontalGlue());
+        menuBar.add(busyIndicator);
+        menuBar.add(btnCancel);
         
         setJMenuBar(menuBar);
     }
@@ -527,9 +975,7 @@ public class View extends javax.swing.JFrame {
             "Seed Database", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = cafeDAO.seedDatabase();
-                
+            runMaintenance(cafeDAO::seedDatabase, success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                         "Database berhasil diisi dengan data contoh!",
@@ -542,11 +988,20 @@ public class View extends javax.swing.JFrame {
                         "Gagal mengisi database dengan data contoh.",
                         "Seed Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this,
-                    "Error: " + e.getMessage(),
-                    "Seed Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }, "Seed Error");
+        }
+    }
+
+    /**
+     * Handle search orders action
+     */
+    private void handleSearchOrders() {
+        String filter = JOptionPane.showInputDialog(this,
+            "Nama pemesan (awalan):",
+            tableModel.getQuery().customerFilter());
+
+        if (filter != null) {
+            tableModel.setQuery(tableModel.getQuery().withCustomerFilter(filter));
         }
     }
 
@@ -560,10 +1015,8 @@ public class View extends javax.swing.JFrame {
             "Clear Database", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                // Use the CafeDAO to safely clear data
-                boolean success = cafeDAO.clearDatabaseSafely();
-                
+            // Use the CafeDAO to safely clear data
+            runMaintenance(cafeDAO::clearDatabaseSafely, success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                         "Semua data berhasil dihapus!",
@@ -576,60 +1029,189 @@ public class View extends javax.swing.JFrame {
                         "Gagal menghapus data.",
                         "Clear Error", JOptionPane.ERROR_MESSAGE);
                 }
-                
-            } catch (Exception e) {
+            }, "Clear Error");
+        }
+    }
+
+    /**
+     * Handle export order history action
+     */
+    private void handleExportHistory() {
+        LocalDate today = LocalDate.now();
+        String range = JOptionPane.showInputDialog(this,
+            "Rentang tanggal (yyyy-MM-dd yyyy-MM-dd):",
+            today.withDayOfMonth(1) + " " + today);
+        if (range == null) {
+            return;
+        }
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            String[] parts = range.trim().split("\\s+");
+            from = LocalDate.parse(parts[0]);
+            to = parts.length > 1 ? LocalDate.parse(parts[1]) : from;
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Format tanggal harus yyyy-MM-dd, mis. " + today,
+                "Input Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("riwayat-" + from + "-" + to + ".cafe"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+
+        runMaintenance(() -> orderHistoryDAO.exportOrders(file, from, to), exported -> {
+            if (exported >= 0) {
+                JOptionPane.showMessageDialog(this,
+                    exported + " pesanan diekspor ke " + file.getFileName() + ".",
+                    "Export Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
                 JOptionPane.showMessageDialog(this,
-                    "Error: " + e.getMessage(),
-                    "Clear Error", JOptionPane.ERROR_MESSAGE);
+                    "Gagal mengekspor riwayat pesanan.",
+                    "Export Error", JOptionPane.ERROR_MESSAGE);
             }
+        }, "Export Error");
+    }
+
+    /**
+     * Handle import order history action
+     */
+    private void handleImportHistory() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path file = chooser.getSelectedFile().toPath();
+
+        runMaintenance(() -> orderHistoryDAO.importOrders(file), imported -> {
+            if (imported >= 0) {
+                JOptionPane.showMessageDialog(this,
+                    imported + " pesanan ditambahkan ke riwayat.",
+                    "Import Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this,
+                    "Gagal mengimpor riwayat pesanan.",
+                    "Import Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, "Import Error");
     }
 
     /**
      * Handle refresh data action
      */
     private void handleRefreshData() {
-        try {
-            loadEmployees();
-            loadMenuItems();
-            loadTables();
-            loadOrdersTable();
+        runInBackground(() -> {
+            // Pick up edits made outside this application
+            CafeDAO.getReferenceData().invalidate();
+            return loadReferenceLists();
+        }, lists -> {
+            applyReferenceLists(lists);
+            refreshOrders();
             
             JOptionPane.showMessageDialog(this,
                 "Data berhasil di-refresh!",
                 "Refresh Success", JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error refreshing data: " + e.getMessage(),
-                "Refresh Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, "Refresh Error");
     }
 
     /**
      * Handle input order button click
      */
     private void handleInputOrder() {
-        try {
-            // Validate input
-            if (!validateInput()) {
-                return;
+        // Validate input
+        if (!validateInput()) {
+            return;
+        }
+
+        // Get form data
+        String customerName = txtPemesan.getText().trim();
+        int employeeId = ((Employee) comboPegawai.getSelectedItem()).id();
+        int tableNumber = ((Table) comboNomorMeja.getSelectedItem()).number();
+        String orderDetails = txtDetailPesanan.getText().trim();
+        String paymentMethod = (String) comboMetodePembayaran.getSelectedItem();
+
+        // One line per selected menu item, carrying its ID and price
+        List<OrderLine> lines = selectedOrderLines();
+
+        if (orderQueue == null) {
+            insertOrderDirectly(customerName, employeeId, tableNumber, orderDetails, paymentMethod, lines);
+            return;
+        }
+
+        QueuedOrder order = QueuedOrder.create(customerName, employeeId, tableNumber,
+                                               orderDetails, paymentMethod, lines);
+        runInBackground(() -> placeOrder(order), outcome -> {
+            switch (outcome) {
+                case SAVED -> JOptionPane.showMessageDialog(this, 
+                    "Pesanan berhasil ditambahkan!", 
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                case QUEUED -> JOptionPane.showMessageDialog(this, 
+                    "Pesanan diterima dan sedang disimpan.", 
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                case QUEUED_OFFLINE -> JOptionPane.showMessageDialog(this, 
+                    "Database tidak terhubung. Pesanan disimpan lokal dan\n" +
+                    "akan dikirim otomatis saat database tersedia.", 
+                    "Offline", JOptionPane.WARNING_MESSAGE);
+                default -> {
+                    JOptionPane.showMessageDialog(this, 
+                        "Gagal menambahkan pesanan. Silakan coba lagi.", 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
             }
 
-            // Get form data
-            String customerName = txtPemesan.getText().trim();
-            String employeeName = (String) comboPegawai.getSelectedItem();
-            String tableInfo = (String) comboNomorMeja.getSelectedItem();
-            String orderDetails = txtDetailPesanan.getText().trim();
-            String paymentMethod = (String) comboMetodePembayaran.getSelectedItem();
+            // Clear form
+            clearForm();
+            if (outcome == OrderOutcome.QUEUED_OFFLINE) {
+                setOffline(true);
+            } else if (outcome == OrderOutcome.SAVED) {
+                // Pick up the new order (and any from other tills)
+                refreshOrders();
+            }
+        }, "Error processing order");
+    }
 
-            // Get selected menu items
-            List<String> selectedMenuItems = listMenu.getSelectedValuesList();
+    /**
+     * Store an order, journaling it when the database can't take it; runs off the EDT.
+     * The order's client key makes a later replay harmless even if the direct
+     * insert did commit before failing.
+     */
+    private OrderOutcome placeOrder(QueuedOrder order) throws Exception {
+        // Both follow connection checks, never a refused order, so a bad order can't make the till go offline
+        boolean unreachable = offline || orderQueue.isUnreachable();
+        if (writeBehind || unreachable) {
+            orderQueue.enqueue(order);
+            return unreachable ? OrderOutcome.QUEUED_OFFLINE : OrderOutcome.QUEUED;
+        }
 
-            // Insert order
-            boolean success = cafeDAO.insertOrder(customerName, employeeName, tableInfo, 
-                                                 orderDetails, paymentMethod, selectedMenuItems);
+        boolean saved;
+        try {
+            saved = cafeDAO.insertOrders(List.of(order));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Database unreachable while placing an order", e);
+            saved = false;
+        }
+        if (saved) {
+            return OrderOutcome.SAVED;
+        }
+        if (!cafeDAO.isReachable()) {
+            orderQueue.enqueue(order);
+            return OrderOutcome.QUEUED_OFFLINE;
+        }
+        return OrderOutcome.FAILED;
+    }
 
+    /**
+     * Insert without a journal to fall back on
+     */
+    private void insertOrderDirectly(String customerName, int employeeId, int tableNumber,
+                                     String orderDetails, String paymentMethod, List<OrderLine> lines) {
+        runInBackground(() -> cafeDAO.insertOrder(customerName, employeeId, tableNumber, 
+                                                  orderDetails, paymentMethod, lines), success -> {
             if (success) {
                 JOptionPane.showMessageDialog(this, 
                     "Pesanan berhasil ditambahkan!", 
@@ -638,60 +1220,72 @@ public class View extends javax.swing.JFrame {
                 // Clear form
                 clearForm();
                 
-                // Refresh orders table
-                loadOrdersTable();
+                // Pick up the new order (and any from other tills)
+                refreshOrders();
             } else {
                 JOptionPane.showMessageDialog(this, 
                     "Gagal menambahkan pesanan. Silakan coba lagi.", 
                     "Error", JOptionPane.ERROR_MESSAGE);
             }
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error processing order", e);
-            JOptionPane.showMessageDialog(this, 
-                "Error: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, "Error processing order");
     }
 
     /**
      * Handle serve order button click
      */
     private void handleServeOrder() {
-        int selectedRow = jTable1.getSelectedRow();
+        int[] selectedRows = jTable1.getSelectedRows();
         
-        if (selectedRow == -1) {
+        if (selectedRows.length == 0) {
             JOptionPane.showMessageDialog(this, 
                 "Pilih pesanan yang akan dilayani terlebih dahulu.", 
                 "No Selection", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        // Get order details from selected row (now without ID column)
-        String customerName = (String) tableModel.getValueAt(selectedRow, 0); // Pemesan
-        String tableInfo = (String) tableModel.getValueAt(selectedRow, 1);    // Meja
-        String menuItems = (String) tableModel.getValueAt(selectedRow, 2);    // Menu Items
+        // Orders are served by the hidden ID column, never by name and table
+        int[] orderIds = new int[selectedRows.length];
+        for (int i = 0; i < selectedRows.length; i++) {
+            orderIds[i] = tableModel.getOrderId(jTable1.convertRowIndexToModel(selectedRows[i]));
+            if (orderIds[i] == -1) {
+                JOptionPane.showMessageDialog(this, 
+                    "Pesanan masih dimuat, coba lagi sebentar.", 
+                    "No Selection", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+        }
 
         // Confirm action
+        String message;
+        if (orderIds.length == 1) {
+            Order order = tableModel.getOrder(jTable1.convertRowIndexToModel(selectedRows[0]));
+            message = "Apakah Anda yakin ingin melayani pesanan dari " + order.customerName()
+                + " di Meja " + order.tableNumber() + "?";
+        } else {
+            message = "Apakah Anda yakin ingin melayani " + orderIds.length + " pesanan?";
+        }
         int confirm = JOptionPane.showConfirmDialog(this, 
-            "Apakah Anda yakin ingin melayani pesanan dari " + customerName + " di " + tableInfo + "?", 
+            message, 
             "Confirm Serve Order", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            boolean success = cafeDAO.deleteOrderByDetails(customerName, tableInfo, menuItems);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "Pesanan berhasil dilayani!", 
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                
-                // Refresh orders table
-                loadOrdersTable();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "Gagal melayani pesanan. Silakan coba lagi.", 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runInBackground(() -> cafeDAO.serveOrders(orderIds), served -> {
+                if (served > 0) {
+                    JOptionPane.showMessageDialog(this, 
+                        "Pesanan berhasil dilayani!", 
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // Drop the served rows, then pick up changes from other tills
+                    for (int orderId : orderIds) {
+                        tableModel.removeOrder(orderId);
+                    }
+                    refreshOrders();
+                } else {
+                    JOptionPane.showMessageDialog(this, 
+                        "Gagal melayani pesanan. Silakan coba lagi.", 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, "Error serving order");
         }
     }
 
@@ -707,6 +1301,22 @@ public class View extends javax.swing.JFrame {
             return false;
         }
 
+        if (txtPemesan.getText().trim().length() > MAX_CUSTOMER_NAME_LENGTH) {
+            JOptionPane.showMessageDialog(this, 
+                "Nama pemesan maksimal " + MAX_CUSTOMER_NAME_LENGTH + " karakter!", 
+                "Validation Error", JOptionPane.WARNING_MESSAGE);
+            txtPemesan.requestFocus();
+            return false;
+        }
+
+        if (txtDetailPesanan.getText().trim().length() > MAX_NOTES_LENGTH) {
+            JOptionPane.showMessageDialog(this, 
+                "Detail pesanan maksimal " + MAX_NOTES_LENGTH + " karakter!", 
+                "Validation Error", JOptionPane.WARNING_MESSAGE);
+            txtDetailPesanan.requestFocus();
+            return false;
+        }
+
         if (comboPegawai.getSelectedItem() == null) {
             JOptionPane.showMessageDialog(this, 
                 "Pilih pegawai terlebih dahulu!", 
@@ -721,7 +1331,7 @@ public class View extends javax.swing.JFrame {
             return false;
         }
 
-        if (listMenu.getSelectedValuesList().isEmpty()) {
+        if (selectedOrderLines().isEmpty()) {
             JOptionPane.showMessageDialog(this, 
                 "Pilih minimal satu menu!", 
                 "Validation Error", JOptionPane.WARNING_MESSAGE);
@@ -738,6 +1348,19 @@ public class View extends javax.swing.JFrame {
         return true;
     }
 
+    /**
+     * Order lines for the selected menu items with their quantities, skipping the loading placeholder
+     */
+    private List<OrderLine> selectedOrderLines() {
+        List<OrderLine> lines = new ArrayList<>();
+        for (MenuItem item : listMenu.getSelectedValuesList()) {
+            if (item != null) {
+                lines.add(OrderLine.of(item, menuQuantities.getOrDefault(item.id(), 1)));
+            }
+        }
+        return lines;
+    }
+
     /**
      * Clear form after successful input
      */
@@ -745,6 +1368,8 @@ public class View extends javax.swing.JFrame {
         txtPemesan.setText("");
         txtDetailPesanan.setText("");
         listMenu.clearSelection();
+        menuQuantities.clear();
+        listMenu.repaint();
         
         // Reset combo boxes to first item
         if (comboPegawai.getItemCount() > 0) {
@@ -759,17 +1384,18 @@ public class View extends javax.swing.JFrame {
     }
 
     /**
-     * Load orders into table
+     * Apply order changes since the last load in the background
      */
-    private void loadOrdersTable() {
-        Object[][] orders = cafeDAO.getAllOrders();
-        
-        // Clear existing data
-        tableModel.setRowCount(0);
-        
-        // Add new data
-        for (Object[] order : orders) {
-            tableModel.addRow(order);
+    private void refreshOrders() {
+        if (orderFeed != null && orderFeed.isConnected()) {
+            return; // The feed delivers every change, including this till's own
         }
+        int watermark = tableModel.getWatermark();
+        OrderQuery query = tableModel.getQuery();
+        runInBackground(() -> cafeDAO.getOrdersChangedSince(watermark, query), delta -> {
+            if (query == tableModel.getQuery()) {
+                tableModel.applyDelta(delta);
+            }
+        }, "Error loading orders");
     }
-}
\ No newline at end of file
+}
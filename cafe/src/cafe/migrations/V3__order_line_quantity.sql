@@ -0,0 +1,16 @@
+-- Quantity per order line: "5 Es Teh" is one Detail_Pesanan row with Jumlah = 5
+
+IF COL_LENGTH('dbo.Detail_Pesanan', 'Jumlah') IS NULL
+    ALTER TABLE Detail_Pesanan ADD Jumlah INT NOT NULL
+        CONSTRAINT DF_Detail_Pesanan_Jumlah DEFAULT 1
+        CONSTRAINT CK_Detail_Pesanan_Jumlah CHECK (Jumlah > 0);
+GO
+
+-- The order board now reads Jumlah; keep its detail index covering
+IF EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Detail_Pesanan_ID_Pesanan' AND object_id = OBJECT_ID(N'[dbo].[Detail_Pesanan]'))
+    DROP INDEX IX_Detail_Pesanan_ID_Pesanan ON Detail_Pesanan;
+GO
+
+CREATE NONCLUSTERED INDEX IX_Detail_Pesanan_ID_Pesanan
+    ON Detail_Pesanan (ID_Pesanan) INCLUDE (ID_Menu, Jumlah, Subtotal);
+GO
@@ -0,0 +1,35 @@
+-- Change log behind the order board push feed: one row per order added or removed,
+-- written by triggers so every writer (this app, other tills, manual SQL) is covered
+
+IF OBJECT_ID(N'[dbo].[Pesanan_Perubahan]', N'U') IS NULL
+    CREATE TABLE Pesanan_Perubahan (
+        ID_Perubahan BIGINT IDENTITY(1,1) PRIMARY KEY,
+        ID_Pesanan INT NOT NULL,
+        Jenis CHAR(1) NOT NULL CONSTRAINT CK_Pesanan_Perubahan_Jenis CHECK (Jenis IN ('I', 'D')),
+        Nama_Pemesan VARCHAR(40) NOT NULL,
+        Waktu DATETIME2 NOT NULL CONSTRAINT DF_Pesanan_Perubahan_Waktu DEFAULT SYSUTCDATETIME()
+    );
+GO
+
+-- Purging old entries
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pesanan_Perubahan_Waktu' AND object_id = OBJECT_ID(N'[dbo].[Pesanan_Perubahan]'))
+    CREATE NONCLUSTERED INDEX IX_Pesanan_Perubahan_Waktu
+        ON Pesanan_Perubahan (Waktu);
+GO
+
+-- NOCOUNT keeps the log rows out of the update counts callers see
+CREATE OR ALTER TRIGGER TR_Pesanan_Perubahan_Insert ON Pesanan AFTER INSERT AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO Pesanan_Perubahan (ID_Pesanan, Jenis, Nama_Pemesan)
+    SELECT ID_Pesanan, 'I', Nama_Pemesan FROM inserted ORDER BY ID_Pesanan;
+END;
+GO
+
+CREATE OR ALTER TRIGGER TR_Pesanan_Perubahan_Delete ON Pesanan AFTER DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO Pesanan_Perubahan (ID_Pesanan, Jenis, Nama_Pemesan)
+    SELECT ID_Pesanan, 'D', Nama_Pemesan FROM deleted ORDER BY ID_Pesanan;
+END;
+GO
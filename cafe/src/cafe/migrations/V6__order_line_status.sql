@@ -0,0 +1,37 @@
+-- Kitchen display: each order line is marked done on its own
+
+IF COL_LENGTH('dbo.Detail_Pesanan', 'Selesai') IS NULL
+    ALTER TABLE Detail_Pesanan ADD Selesai BIT NOT NULL
+        CONSTRAINT DF_Detail_Pesanan_Selesai DEFAULT 0;
+GO
+
+-- Open lines only, so the kitchen's initial load stays small however many lines are done
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Detail_Pesanan_Open' AND object_id = OBJECT_ID(N'[dbo].[Detail_Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Detail_Pesanan_Open
+        ON Detail_Pesanan (ID_Pesanan) INCLUDE (ID_Menu, Jumlah, Catatan) WHERE Selesai = 0;
+GO
+
+-- Line status changes go through the order change log as 'L' entries
+IF COL_LENGTH('dbo.Pesanan_Perubahan', 'ID_Detail') IS NULL
+    ALTER TABLE Pesanan_Perubahan ADD ID_Detail INT NULL;
+GO
+
+ALTER TABLE Pesanan_Perubahan DROP CONSTRAINT IF EXISTS CK_Pesanan_Perubahan_Jenis;
+GO
+
+ALTER TABLE Pesanan_Perubahan ADD CONSTRAINT CK_Pesanan_Perubahan_Jenis CHECK (Jenis IN ('I', 'D', 'L'));
+GO
+
+CREATE OR ALTER TRIGGER TR_Detail_Pesanan_Selesai ON Detail_Pesanan AFTER UPDATE AS
+BEGIN
+    SET NOCOUNT ON;
+    IF UPDATE(Selesai)
+        INSERT INTO Pesanan_Perubahan (ID_Pesanan, Jenis, Nama_Pemesan, ID_Detail)
+        SELECT i.ID_Pesanan, 'L', p.Nama_Pemesan, i.ID_Detail
+        FROM inserted i
+        JOIN deleted d ON d.ID_Detail = i.ID_Detail
+        JOIN Pesanan p ON p.ID_Pesanan = i.ID_Pesanan
+        WHERE i.Selesai = 1 AND d.Selesai = 0
+        ORDER BY i.ID_Detail;
+END;
+GO
@@ -0,0 +1,125 @@
+-- Orders are closed by status instead of deleted: O = open, S = served, V = void.
+-- Closed orders stay in Pesanan until OrderArchiver moves them to the history tables.
+
+IF COL_LENGTH('dbo.Pesanan', 'Status_Pesanan') IS NULL
+    ALTER TABLE Pesanan ADD Status_Pesanan CHAR(1) NOT NULL
+        CONSTRAINT DF_Pesanan_Status_Pesanan DEFAULT 'O'
+        CONSTRAINT CK_Pesanan_Status_Pesanan CHECK (Status_Pesanan IN ('O', 'S', 'V'));
+GO
+
+IF COL_LENGTH('dbo.Pesanan', 'Waktu_Dilayani') IS NULL
+    ALTER TABLE Pesanan ADD Waktu_Dilayani DATETIME2 NULL;
+GO
+
+-- Order board: open orders only, however many closed ones are waiting for the archiver
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pesanan_Open' AND object_id = OBJECT_ID(N'[dbo].[Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Pesanan_Open
+        ON Pesanan (ID_Pesanan DESC) INCLUDE (Nama_Pemesan, Nomor_Meja, Metode_Pembayaran)
+        WHERE Status_Pesanan = 'O';
+GO
+
+-- The table and customer sorts only ever read open orders too
+DROP INDEX IF EXISTS IX_Pesanan_Nomor_Meja ON Pesanan;
+GO
+
+CREATE NONCLUSTERED INDEX IX_Pesanan_Nomor_Meja
+    ON Pesanan (Nomor_Meja, ID_Pesanan DESC) INCLUDE (Nama_Pemesan, Metode_Pembayaran)
+    WHERE Status_Pesanan = 'O';
+GO
+
+DROP INDEX IF EXISTS IX_Pesanan_Nama_Pemesan ON Pesanan;
+GO
+
+CREATE NONCLUSTERED INDEX IX_Pesanan_Nama_Pemesan
+    ON Pesanan (Nama_Pemesan, ID_Pesanan DESC) INCLUDE (Nomor_Meja, Metode_Pembayaran)
+    WHERE Status_Pesanan = 'O';
+GO
+
+-- Archiver: closed orders, oldest first
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Pesanan_Closed' AND object_id = OBJECT_ID(N'[dbo].[Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Pesanan_Closed
+        ON Pesanan (Waktu_Dilayani) WHERE Status_Pesanan IN ('S', 'V');
+GO
+
+-- A table is occupied while it has an open order
+CREATE OR ALTER VIEW StatusReservasiMeja AS
+SELECT
+    m.Nomor_Meja,
+    m.Kapasitas,
+    CASE
+        WHEN EXISTS (
+            SELECT 1
+            FROM Pesanan p
+            WHERE p.Nomor_Meja = m.Nomor_Meja AND p.Status_Pesanan = 'O'
+        )
+        THEN 'Terpakai'
+        ELSE 'Tersedia'
+    END AS Status_Reservasi
+FROM Meja m;
+GO
+
+-- Closing an order takes it off the boards ('D'); archiving it later must not log it again
+CREATE OR ALTER TRIGGER TR_Pesanan_Perubahan_Status ON Pesanan AFTER UPDATE AS
+BEGIN
+    SET NOCOUNT ON;
+    IF UPDATE(Status_Pesanan)
+        INSERT INTO Pesanan_Perubahan (ID_Pesanan, Jenis, Nama_Pemesan)
+        SELECT i.ID_Pesanan, 'D', i.Nama_Pemesan
+        FROM inserted i
+        JOIN deleted d ON d.ID_Pesanan = i.ID_Pesanan
+        WHERE d.Status_Pesanan = 'O' AND i.Status_Pesanan <> 'O'
+        ORDER BY i.ID_Pesanan;
+END;
+GO
+
+CREATE OR ALTER TRIGGER TR_Pesanan_Perubahan_Delete ON Pesanan AFTER DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO Pesanan_Perubahan (ID_Pesanan, Jenis, Nama_Pemesan)
+    SELECT ID_Pesanan, 'D', Nama_Pemesan FROM deleted WHERE Status_Pesanan = 'O' ORDER BY ID_Pesanan;
+END;
+GO
+
+-- History, partitioned by month of Tanggal_Pesanan. The archiver splits in a
+-- new boundary before it moves the first order of a month.
+IF NOT EXISTS (SELECT * FROM sys.partition_functions WHERE name = 'PF_Riwayat_Bulan')
+    CREATE PARTITION FUNCTION PF_Riwayat_Bulan (DATE) AS RANGE RIGHT FOR VALUES ();
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.partition_schemes WHERE name = 'PS_Riwayat_Bulan')
+    CREATE PARTITION SCHEME PS_Riwayat_Bulan AS PARTITION PF_Riwayat_Bulan ALL TO ([PRIMARY]);
+GO
+
+IF OBJECT_ID(N'[dbo].[Riwayat_Pesanan]', N'U') IS NULL
+    CREATE TABLE Riwayat_Pesanan (
+        ID_Pesanan INT NOT NULL,
+        ID_Pegawai INT NULL,
+        Nomor_Meja INT NULL,
+        Nama_Pemesan VARCHAR(40) NOT NULL,
+        Tanggal_Pesanan DATE NOT NULL,
+        Metode_Pembayaran VARCHAR(20) NOT NULL,
+        Client_Key UNIQUEIDENTIFIER NULL,
+        Status_Pesanan CHAR(1) NOT NULL,
+        Waktu_Dilayani DATETIME2 NULL,
+        CONSTRAINT PK_Riwayat_Pesanan PRIMARY KEY CLUSTERED (Tanggal_Pesanan, ID_Pesanan)
+    ) ON PS_Riwayat_Bulan (Tanggal_Pesanan);
+GO
+
+IF OBJECT_ID(N'[dbo].[Riwayat_Detail_Pesanan]', N'U') IS NULL
+    CREATE TABLE Riwayat_Detail_Pesanan (
+        ID_Detail INT NOT NULL,
+        ID_Pesanan INT NOT NULL,
+        Tanggal_Pesanan DATE NOT NULL,
+        ID_Menu INT NULL,
+        Catatan VARCHAR(100) NULL,
+        Jumlah INT NOT NULL,
+        Subtotal INT NOT NULL,
+        CONSTRAINT PK_Riwayat_Detail_Pesanan PRIMARY KEY CLUSTERED (Tanggal_Pesanan, ID_Pesanan, ID_Detail)
+    ) ON PS_Riwayat_Bulan (Tanggal_Pesanan);
+GO
+
+-- Journal replays check archived orders for their client key too
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Riwayat_Pesanan_Client_Key' AND object_id = OBJECT_ID(N'[dbo].[Riwayat_Pesanan]'))
+    CREATE NONCLUSTERED INDEX IX_Riwayat_Pesanan_Client_Key
+        ON Riwayat_Pesanan (Client_Key) WHERE Client_Key IS NOT NULL;
+GO
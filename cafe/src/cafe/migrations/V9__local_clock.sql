@@ -0,0 +1,20 @@
+-- Every order timestamp uses the server's local clock, like Waktu_Pesanan and
+-- Tanggal_Pesanan, so a report day and the archive and purge windows agree.
+-- Waktu_Dilayani and Pesanan_Perubahan.Waktu were written in UTC until now.
+
+DECLARE @offset INT = DATEDIFF(MINUTE, SYSUTCDATETIME(), SYSDATETIME());
+
+UPDATE Pesanan SET Waktu_Dilayani = DATEADD(MINUTE, @offset, Waktu_Dilayani)
+WHERE Waktu_Dilayani IS NOT NULL;
+
+UPDATE Riwayat_Pesanan SET Waktu_Dilayani = DATEADD(MINUTE, @offset, Waktu_Dilayani)
+WHERE Waktu_Dilayani IS NOT NULL;
+
+UPDATE Pesanan_Perubahan SET Waktu = DATEADD(MINUTE, @offset, Waktu);
+GO
+
+ALTER TABLE Pesanan_Perubahan DROP CONSTRAINT DF_Pesanan_Perubahan_Waktu;
+GO
+
+ALTER TABLE Pesanan_Perubahan ADD CONSTRAINT DF_Pesanan_Perubahan_Waktu DEFAULT SYSDATETIME() FOR Waktu;
+GO